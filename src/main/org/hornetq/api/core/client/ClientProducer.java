@@ -13,6 +13,8 @@
 
 package org.hornetq.api.core.client;
 
+import java.util.List;
+
 import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.SimpleString;
@@ -87,6 +89,36 @@ public interface ClientProducer
     */
    void send(String address, Message message) throws HornetQException;
 
+   /**
+    * Sends a batch of messages to the address
+    * specified in {@link ClientSession#createProducer(String)} or similar methods.
+    *
+    * <br><br>The messages are sent in a single packet and routed on the server as a single unit: outside of a
+    * transaction, the durable messages are persisted together and the messages are delivered once they have all
+    * been routed, and none of them is routed if one of them is rejected (e.g. as a duplicate).
+    * Large messages are sent on their own, in the order of the batch. A batch bigger than
+    * {@link ServerLocator#getMinLargeMessageSize()} is split in several packets, each routed as a unit.
+    *
+    * <br><br>This will block until confirmation that the messages have reached the server has been received if
+    * {@link ClientSessionFactory#setBlockOnDurableSend(boolean)} or {@link org.hornetq.api.core.client.ClientSessionFactory#setBlockOnNonDurableSend(boolean)}
+    * are set to <code>true</code> for the type of any message of the batch.
+    *
+    * @param messages the messages to send
+    * @throws HornetQException if an exception occurs while sending the messages
+    */
+   void send(List<? extends Message> messages) throws HornetQException;
+
+   /**
+    * Sends a batch of messages to the specified address instead of the ClientProducer's address.
+    *
+    * @see #send(List)
+    *
+    * @param address the address where the messages will be sent
+    * @param messages the messages to send
+    * @throws HornetQException if an exception occurs while sending the messages
+    */
+   void send(SimpleString address, List<? extends Message> messages) throws HornetQException;
+
    /**
     * Closes the ClientProducer. If already closed nothing is done.
     * 
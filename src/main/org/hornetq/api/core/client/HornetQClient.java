@@ -44,6 +44,8 @@ public class HornetQClient
 
    public static final int DEFAULT_CONSUMER_WINDOW_SIZE = 1024 * 1024;
 
+   public static final boolean DEFAULT_ADAPTIVE_CONSUMER_WINDOW_SIZE = false;
+
    public static final int DEFAULT_CONSUMER_MAX_RATE = -1;
 
    public static final int DEFAULT_CONFIRMATION_WINDOW_SIZE = -1;
@@ -52,6 +54,12 @@ public class HornetQClient
 
    public static final int DEFAULT_PRODUCER_MAX_RATE = -1;
 
+   public static final int DEFAULT_SEND_ACKNOWLEDGEMENT_WINDOW_SIZE = -1;
+
+   public static final int DEFAULT_CONNECTION_POOL_SIZE = -1;
+
+   public static final boolean DEFAULT_RECYCLE_MESSAGES = false;
+
    public static final boolean DEFAULT_BLOCK_ON_ACKNOWLEDGE = false;
 
    public static final boolean DEFAULT_BLOCK_ON_DURABLE_SEND = true;
@@ -108,6 +108,53 @@ public interface ServerLocator
     */
    void setConnectionTTL(long connectionTTL);
 
+   /**
+    * Returns the maximum number of connections shared by the session factories created by this locator.
+    * 
+    * Value is -1 (no pool) or greater than 0. Default value is {@link HornetQClient#DEFAULT_CONNECTION_POOL_SIZE}.
+    * 
+    * @return the size of the connection pool
+    */
+   int getConnectionPoolSize();
+
+   /**
+    * Sets the maximum number of connections shared by the session factories created by this locator.
+    * 
+    * With a pool, {@link #createSessionFactory()} returns a session factory whose sessions are created on one of
+    * the pooled connections (the one with the fewest session factories), so many session factories (e.g. one per
+    * JMS connection) share a few connections to the server. Closing such a session factory closes its sessions but
+    * leaves the pooled connection open until this locator is closed.
+    * 
+    * As the sessions of a pooled connection fail over together, a pool should not be used when the session factories
+    * must be isolated from each other.
+    * 
+    * Value must be -1 (no pool) or greater than 0.
+    * 
+    * @param connectionPoolSize the maximum number of pooled connections
+    */
+   void setConnectionPoolSize(int connectionPoolSize);
+
+   /**
+    * Returns whether the messages delivered to a {@link MessageHandler} are recycled once handled.
+    * 
+    * Default value is {@link HornetQClient#DEFAULT_RECYCLE_MESSAGES}.
+    * 
+    * @return <code>true</code> if the messages are recycled, <code>false</code> else
+    */
+   boolean isRecycleMessages();
+
+   /**
+    * Sets whether the messages delivered to a {@link MessageHandler} are recycled once handled.
+    * 
+    * When recycled, a message is reused for a message received later as soon as {@link MessageHandler#onMessage(ClientMessage)}
+    * returns, so a consumer receiving messages at a high rate doesn't create new message objects for each of them.
+    * The handlers must then not keep the messages, or their body buffers, after onMessage returns.
+    * The messages returned by {@link ClientConsumer#receive()} and the large messages are never recycled.
+    * 
+    * @param recycleMessages <code>true</code> to recycle the messages delivered to the message handlers
+    */
+   void setRecycleMessages(boolean recycleMessages);
+
    /**
     * Returns the blocking calls timeout.
     * 
@@ -165,6 +212,29 @@ public interface ServerLocator
     */
    void setConsumerWindowSize(int consumerWindowSize);
 
+   /**
+    * Returns whether the window size of the consumers created through this factory adapts to their consumption.
+    * 
+    * Default value is {@link HornetQClient#DEFAULT_ADAPTIVE_CONSUMER_WINDOW_SIZE}.
+    * 
+    * @return <code>true</code> if the consumer window size is adaptive, <code>false</code> else
+    */
+   boolean isAdaptiveConsumerWindowSize();
+
+   /**
+    * Sets whether the window size of the consumers created through this factory adapts to their consumption.
+    * 
+    * An adaptive consumer starts with the consumer window size and then resizes its window to twice the bytes it
+    * consumes during the round trip of its flow control credits: a fast consumer, or one far from the server, buffers
+    * more messages instead of waiting for them while a slow consumer buffers less, leaving the messages to the other
+    * consumers of the queue. The window is kept between 1/16 and 16 times the consumer window size.
+    * 
+    * This has no effect if the consumer window size is -1, 0 or 1.
+    *
+    * @param adaptiveConsumerWindowSize <code>true</code> to adapt the consumer window sizes
+    */
+   void setAdaptiveConsumerWindowSize(boolean adaptiveConsumerWindowSize);
+
    /**
     * Returns the maximum rate of message consumption for consumers created through this factory.
     * 
@@ -223,6 +293,33 @@ public interface ServerLocator
     */
    void setProducerWindowSize(int producerWindowSize);
 
+   /**
+    * Returns the maximum amount of bytes sent asynchronously by the sessions created through this factory that can
+    * wait for an acknowledgement from the server.
+    * 
+    * Value is -1 (no limit) or greater than 0. It is only used when the confirmation window size is greater than 0.
+    * Default value is {@link HornetQClient#DEFAULT_SEND_ACKNOWLEDGEMENT_WINDOW_SIZE}.
+    * 
+    * @return the window size (in bytes) of the sends waiting for an acknowledgement
+    */
+   int getSendAcknowledgementWindowSize();
+
+   /**
+    * Sets the maximum amount of bytes sent asynchronously by the sessions created through this factory that can
+    * wait for an acknowledgement from the server.
+    * 
+    * A producer sending durable messages asynchronously with a {@link SendAcknowledgementHandler} blocks once this
+    * window is full, until the server has persisted enough of them. This pipelines the sends while bounding
+    * the memory they use on the client.
+    * The server acknowledges sends every confirmation window size bytes, so the window used is at least twice
+    * the confirmation window size.
+    * 
+    * Value must be -1 (no limit) or greater than 0.
+    * 
+    * @param sendAcknowledgementWindowSize window size (in bytes) of the sends waiting for an acknowledgement
+    */
+   void setSendAcknowledgementWindowSize(int sendAcknowledgementWindowSize);
+
    /**
     * Returns the maximum rate of message production for producers created through this factory.
     * 
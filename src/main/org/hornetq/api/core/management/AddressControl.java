@@ -56,6 +56,16 @@ public interface AddressControl
     */
    long getNumberOfBytesPerPage() throws Exception;
 
+   /**
+    * Returns the number of pages already consumed by every queue bound to this address but not deleted yet.
+    */
+   long getNumberOfPagesPendingReclaim() throws Exception;
+
+   /**
+    * Returns the number of pages deleted for this address since it was started.
+    */
+   long getNumberOfReclaimedPages() throws Exception;
+
    /**
     * Returns the names of all bindings (both queues and diverts) bound to this address
     */
@@ -42,6 +42,21 @@ public interface HornetQServerControl
     */
    int getConnectionCount();
 
+   /**
+    * Returns the number of connections closed by this server because they did not receive data within their connection TTL.
+    */
+   long getExpiredConnectionCount();
+
+   /**
+    * Returns the number of connections visited by the last check of the connection TTLs.
+    */
+   int getLastConnectionCheckCount();
+
+   /**
+    * Returns the time taken by the last check of the connection TTLs, in milliseconds.
+    */
+   long getLastConnectionCheckDuration();
+
    /**
     * Return whether this server is started.
     */
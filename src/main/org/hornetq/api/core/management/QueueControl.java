@@ -306,6 +306,12 @@ public interface QueueControl
    @Operation(desc = "Resumes delivery of queued messages and gets the queue out of paused state.", impact = MBeanOperationInfo.ACTION)
    void resume() throws Exception;
    
+   /**
+    * Lists the consumers of this queue as a JSON array. Besides their IDs, each consumer has its flow control
+    * <code>credits</code> (the bytes it can still be delivered, -1 if it isn't flow controlled) and the
+    * <code>creditsReceived</code> from the client since it was created, which grow faster than the bytes consumed
+    * when the client widens the consumer window.
+    */
    @Operation(desc = "List all the existent consumers on the Queue")
    String listConsumersAsJSON() throws Exception;
 
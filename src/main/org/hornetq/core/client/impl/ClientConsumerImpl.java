@@ -14,6 +14,7 @@
 package org.hornetq.core.client.impl;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.concurrent.Executor;
 
@@ -74,10 +75,15 @@ public class ClientConsumerImpl implements ClientConsumerInternal
 
    private final Executor sessionExecutor;
 
-   private final int clientWindowSize;
+   // resized by the window tuner, if any
+   private volatile int clientWindowSize;
 
    private final int ackBatchSize;
 
+   private final boolean recycleMessages;
+
+   private final ConsumerWindowTuner windowTuner;
+
    private final PriorityLinkedList<ClientMessageInternal> buffer = new PriorityLinkedListImpl<ClientMessageInternal>(ClientConsumerImpl.NUM_PRIORITIES);
 
    private final Runner runner = new Runner();
@@ -106,7 +112,14 @@ public class ClientConsumerImpl implements ClientConsumerInternal
 
    private volatile int ackBytes;
 
-   private volatile ClientMessageInternal lastAckedMessage;
+   // the id of the last message acknowledged but not sent yet, -1 if none. Not the message itself, which may be
+   // recycled
+   private volatile long lastAckedMessageID = -1;
+
+   // the ids of the messages acknowledged individually but not sent yet, guarded by this
+   private long[] individualAcks = new long[16];
+
+   private volatile int individualAckCount;
 
    private boolean stopped = false;
 
@@ -126,6 +139,8 @@ public class ClientConsumerImpl implements ClientConsumerInternal
                              final boolean browseOnly,
                              final int clientWindowSize,
                              final int ackBatchSize,
+                             final boolean recycleMessages,
+                             final ConsumerWindowTuner windowTuner,
                              final TokenBucketLimiter rateLimiter,
                              final Executor executor,
                              final Channel channel,
@@ -151,6 +166,10 @@ public class ClientConsumerImpl implements ClientConsumerInternal
 
       this.ackBatchSize = ackBatchSize;
 
+      this.recycleMessages = recycleMessages;
+
+      this.windowTuner = windowTuner;
+
       this.queueInfo = queueInfo;
    }
 
@@ -430,10 +449,21 @@ public class ClientConsumerImpl implements ClientConsumerInternal
    {
       clearBuffer();
 
-      lastAckedMessage = null;
+      lastAckedMessageID = -1;
+
+      synchronized (this)
+      {
+         individualAckCount = 0;
+      }
 
       creditsToSend = 0;
 
+      if (windowTuner != null)
+      {
+         // the session recreates the consumer with the credits of the client window size
+         windowTuner.reset(clientWindowSize);
+      }
+
       ackIndividually = false;
    }
 
@@ -499,6 +529,11 @@ public class ClientConsumerImpl implements ClientConsumerInternal
 
       messageToHandle.onReceipt(this);
 
+      if (windowTuner != null)
+      {
+         windowTuner.received(messageToHandle.getFlowControlSize(), System.nanoTime());
+      }
+
       if (message.getPriority() != 4)
       {
          // We have messages of different priorities so we need to ack them individually since the order
@@ -534,6 +569,11 @@ public class ClientConsumerImpl implements ClientConsumerInternal
 
       // Flow control for the first packet, we will have others
 
+      if (windowTuner != null)
+      {
+         windowTuner.received(packet.getPacketSize(), System.nanoTime());
+      }
+
       flowControl(packet.getPacketSize(), false);
 
       ClientLargeMessageInternal currentChunkMessage = (ClientLargeMessageInternal)packet.getLargeMessage();
@@ -571,6 +611,10 @@ public class ClientConsumerImpl implements ClientConsumerInternal
       {
          return;
       }
+      if (windowTuner != null)
+      {
+         windowTuner.received(chunk.getPacketSize(), System.nanoTime());
+      }
       currentLargeMessageController.addPacket(chunk);
    }
 
@@ -609,16 +653,21 @@ public class ClientConsumerImpl implements ClientConsumerInternal
 
    public void acknowledge(final ClientMessage message) throws HornetQException
    {
-      ClientMessageInternal cmi = (ClientMessageInternal)message;
-
       if (ackIndividually)
       {
-         if (lastAckedMessage != null)
+         if (lastAckedMessageID != -1)
          {
             flushAcks();
          }
 
-         session.individualAcknowledge(id, message.getMessageID());
+         ackBytes += message.getEncodeSize();
+
+         addIndividualAck(message.getMessageID());
+
+         if (ackBytes >= ackBatchSize)
+         {
+            flushIndividualAcks();
+         }
       }
       else
       {
@@ -626,21 +675,25 @@ public class ClientConsumerImpl implements ClientConsumerInternal
 
          if (ackBytes >= ackBatchSize)
          {
-            doAck(cmi);
+            doAck(message.getMessageID());
          }
          else
          {
-            lastAckedMessage = cmi;
+            lastAckedMessageID = message.getMessageID();
          }
       }
    }
 
    public void flushAcks() throws HornetQException
    {
-      if (lastAckedMessage != null)
+      long messageID = lastAckedMessageID;
+
+      if (messageID != -1)
       {
-         doAck(lastAckedMessage);
+         doAck(messageID);
       }
+
+      flushIndividualAcks();
    }
 
    /** 
@@ -683,10 +736,15 @@ public class ClientConsumerImpl implements ClientConsumerInternal
                   ClientConsumerImpl.log.trace("Sending " + messageBytes + " from flow-control");
                }
 
-               final int credits = creditsToSend;
+               int credits = creditsToSend;
 
                creditsToSend = 0;
 
+               if (windowTuner != null)
+               {
+                  credits = resizeWindow(credits);
+               }
+
                if (credits > 0)
                {
                   sendCredits(credits);
@@ -746,6 +804,38 @@ public class ClientConsumerImpl implements ClientConsumerInternal
       sessionExecutor.execute(runner);
    }
 
+   /**
+    * @param credits the credits consumed
+    * @return the credits to send
+    */
+   private int resizeWindow(final int credits)
+   {
+      int windowSize = windowTuner.getWindowSize();
+
+      int toSend = windowTuner.resize(credits, System.nanoTime());
+
+      if (windowTuner.getWindowSize() != windowSize)
+      {
+         clientWindowSize = windowTuner.getWindowSize() >> 1;
+
+         if (ClientConsumerImpl.trace)
+         {
+            ClientConsumerImpl.log.trace("Resized window of consumer " + id +
+                                         " from " +
+                                         windowSize +
+                                         " to " +
+                                         windowTuner.getWindowSize() +
+                                         " bytes, consumption rate = " +
+                                         windowTuner.getConsumptionRate() +
+                                         " bytes/s, credits round trip = " +
+                                         windowTuner.getRoundTrip() +
+                                         " us");
+         }
+      }
+
+      return toSend;
+   }
+
    /**
     * @param credits
     */
@@ -855,6 +945,12 @@ public class ClientConsumerImpl implements ClientConsumerInternal
                session.expire(id, message.getMessageID());
             }
 
+            if (recycleMessages && !message.isLargeMessage())
+            {
+               // handled: the next message received can be decoded into it
+               ClientMessagePool.getInstance().recycle((ClientMessageImpl)message);
+            }
+
             // If slow consumer, we need to send 1 credit to make sure we get another message
             if (clientWindowSize == 0)
             {
@@ -937,13 +1033,54 @@ public class ClientConsumerImpl implements ClientConsumerInternal
       buffer.clear();
    }
 
-   private void doAck(final ClientMessageInternal message) throws HornetQException
+   private synchronized void addIndividualAck(final long messageID)
+   {
+      if (individualAckCount == individualAcks.length)
+      {
+         individualAcks = Arrays.copyOf(individualAcks, individualAckCount << 1);
+      }
+
+      individualAcks[individualAckCount++] = messageID;
+   }
+
+   /**
+    * Sends the individual acks pending in a single packet.
+    */
+   private void flushIndividualAcks() throws HornetQException
+   {
+      if (individualAckCount == 0)
+      {
+         return;
+      }
+
+      long[] messageIDs;
+
+      synchronized (this)
+      {
+         messageIDs = Arrays.copyOf(individualAcks, individualAckCount);
+
+         individualAckCount = 0;
+
+         ackBytes = 0;
+      }
+
+      if (messageIDs.length == 1)
+      {
+         session.individualAcknowledge(id, messageIDs[0]);
+      }
+      else if (messageIDs.length > 1)
+      {
+         session.individualAcknowledge(id, messageIDs);
+      }
+   }
+
+   private void doAck(final long messageID) throws HornetQException
    {
       ackBytes = 0;
 
-      lastAckedMessage = null;
+      lastAckedMessageID = -1;
 
-      session.acknowledge(id, message.getMessageID());
+      session.acknowledge(id, messageID);
    }
 
    // Inner classes
@@ -194,6 +194,22 @@ public class ClientMessageImpl extends MessageImpl implements ClientMessageInter
       this.bodyInputStream = bodyInputStream;
    }
 
+   /**
+    * Clears the state of the message handled before this instance is recycled.
+    */
+   void reset()
+   {
+      consumer = null;
+
+      deliveryCount = 0;
+
+      flowControlSize = -1;
+
+      bodyInputStream = null;
+
+      releaseBuffer();
+   }
+
    public void setBuffer(final HornetQBuffer buffer)
    {
       this.buffer = buffer;
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.client.impl;
+
+/**
+ * A bounded pool of the client messages recycled by the consumers once handled
+ * (see {@link org.hornetq.api.core.client.ServerLocator#setRecycleMessages(boolean)}).
+ *
+ * The messages received are decoded into the recycled instances, new ones are only created when the pool is empty.
+ * A recycled message doesn't keep the buffer of the message it was, only the objects are reused: the buffers belong
+ * to the transport, which hands over the inbound frames.
+ *
+ */
+public class ClientMessagePool
+{
+   // Constants -----------------------------------------------------
+
+   public static final int DEFAULT_CAPACITY = 1024;
+
+   private static final ClientMessagePool instance = new ClientMessagePool(ClientMessagePool.DEFAULT_CAPACITY);
+
+   // Attributes ----------------------------------------------------
+
+   private final ClientMessageImpl[] messages;
+
+   // guarded by this, volatile so the decoders don't lock when nothing is recycled
+   private volatile int size;
+
+   // Static --------------------------------------------------------
+
+   /**
+    * @return the pool of the messages decoded by the client connections
+    */
+   public static ClientMessagePool getInstance()
+   {
+      return ClientMessagePool.instance;
+   }
+
+   // Constructors --------------------------------------------------
+
+   /**
+    * @param capacity the maximum number of messages pooled, the messages recycled beyond are dropped
+    */
+   public ClientMessagePool(final int capacity)
+   {
+      messages = new ClientMessageImpl[capacity];
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * @return a recycled message, or a new one if there is none
+    */
+   public ClientMessageImpl take()
+   {
+      if (size > 0)
+      {
+         synchronized (this)
+         {
+            if (size > 0)
+            {
+               ClientMessageImpl message = messages[--size];
+
+               messages[size] = null;
+
+               return message;
+            }
+         }
+      }
+
+      return new ClientMessageImpl();
+   }
+
+   /**
+    * Returns a message to the pool, it must not be used anymore.
+    */
+   public void recycle(final ClientMessageImpl message)
+   {
+      message.reset();
+
+      synchronized (this)
+      {
+         if (size < messages.length)
+         {
+            messages[size++] = message;
+         }
+      }
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   // Private -------------------------------------------------------
+
+   // Inner classes -------------------------------------------------
+
+}
@@ -15,6 +15,8 @@ package org.hornetq.core.client.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.hornetq.api.core.HornetQBuffer;
@@ -26,6 +28,8 @@ import org.hornetq.core.logging.Logger;
 import org.hornetq.core.message.BodyEncoder;
 import org.hornetq.core.message.impl.MessageInternal;
 import org.hornetq.core.protocol.core.Channel;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionSendBatchMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendContinuationMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendLargeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendMessage;
@@ -72,6 +76,8 @@ public class ClientProducerImpl implements ClientProducerInternal
 
    private final int minLargeMessageSize;
 
+   private final int sendAcknowledgementWindowSize;
+
    private final ClientProducerCredits credits;
 
    // Static ---------------------------------------------------------------------------------------
@@ -86,6 +92,7 @@ public class ClientProducerImpl implements ClientProducerInternal
                              final boolean autoGroup,
                              final SimpleString groupID,
                              final int minLargeMessageSize,
+                             final int sendAcknowledgementWindowSize,
                              final Channel channel)
    {
       this.channel = channel;
@@ -111,6 +118,8 @@ public class ClientProducerImpl implements ClientProducerInternal
 
       this.minLargeMessageSize = minLargeMessageSize;
 
+      this.sendAcknowledgementWindowSize = sendAcknowledgementWindowSize;
+
       if (address != null)
       {
          credits = session.getCredits(address, false);
@@ -147,6 +156,20 @@ public class ClientProducerImpl implements ClientProducerInternal
       send(SimpleString.toSimpleString(address), message);
    }
 
+   public void send(final List<? extends Message> messages) throws HornetQException
+   {
+      checkClosed();
+
+      doSend(null, messages);
+   }
+
+   public void send(final SimpleString address, final List<? extends Message> messages) throws HornetQException
+   {
+      checkClosed();
+
+      doSend(address, messages);
+   }
+
    public synchronized void close() throws HornetQException
    {
       if (closed)
@@ -218,17 +241,7 @@ public class ClientProducerImpl implements ClientProducerInternal
 
       ClientProducerCredits theCredits;
 
-      boolean isLarge;
-
-      if (msgI.getBodyInputStream() != null || msgI.isLargeMessage() ||
-          msgI.getBodyBuffer().writerIndex() > minLargeMessageSize)
-      {
-         isLarge = true;
-      }
-      else
-      {
-         isLarge = false;
-      }
+      boolean isLarge = isLarge(msgI);
 
       if (address != null)
       {
@@ -288,6 +301,12 @@ public class ClientProducerImpl implements ClientProducerInternal
          }
          else
          {
+            if (sendAcknowledgementWindowSize != -1)
+            {
+               // Pipelined sends: this will block if too many are waiting for the server to acknowledge them
+               channel.waitForConfirmations(sendAcknowledgementWindowSize);
+            }
+
             channel.sendBatched(packet);
          }
       }
@@ -310,6 +329,141 @@ public class ClientProducerImpl implements ClientProducerInternal
       }
    }
 
+   private void doSend(final SimpleString address, final List<? extends Message> messages) throws HornetQException
+   {
+      List<MessageInternal> batch = new ArrayList<MessageInternal>(messages.size());
+
+      int batchSize = 0;
+
+      for (Message msg : messages)
+      {
+         MessageInternal msgI = (MessageInternal)msg;
+
+         if (isLarge(msgI))
+         {
+            sendBatch(address, batch);
+
+            // the packet sent keeps the list until it is confirmed
+            batch = new ArrayList<MessageInternal>();
+
+            batchSize = 0;
+
+            doSend(address, msgI);
+         }
+         else
+         {
+            batch.add(msgI);
+
+            batchSize += msgI.getEncodeSize();
+
+            // A batch is no bigger than the chunks of a large message, so a long list doesn't make a huge packet
+            // and a huge transaction on the server
+            if (batchSize >= minLargeMessageSize)
+            {
+               sendBatch(address, batch);
+
+               batch = new ArrayList<MessageInternal>();
+
+               batchSize = 0;
+            }
+         }
+      }
+
+      sendBatch(address, batch);
+   }
+
+   /**
+    * Sends a batch of non large messages in a single packet, with a single credits acquisition.
+    */
+   private void sendBatch(final SimpleString address, final List<MessageInternal> batch) throws HornetQException
+   {
+      if (batch.size() <= 1 || session.getVersion() < PacketImpl.SESS_SEND_BATCH_VERSION)
+      {
+         // older servers only know about single sends
+         for (MessageInternal msgI : batch)
+         {
+            doSend(address, msgI);
+         }
+
+         return;
+      }
+
+      ClientProducerCredits theCredits;
+
+      if (address != null)
+      {
+         // Anonymous
+         theCredits = session.getCredits(address, true);
+      }
+      else
+      {
+         theCredits = credits;
+      }
+
+      boolean sendBlocking = false;
+
+      for (MessageInternal msgI : batch)
+      {
+         session.setAddress(msgI, address != null ? address : this.address);
+
+         if (rateLimiter != null)
+         {
+            // Rate flow control
+
+            rateLimiter.limit();
+         }
+
+         if (groupID != null)
+         {
+            msgI.putStringProperty(Message.HDR_GROUP_ID, groupID);
+         }
+
+         sendBlocking |= msgI.isDurable() ? blockOnDurableSend : blockOnNonDurableSend;
+      }
+
+      session.workDone();
+
+      SessionSendBatchMessage packet = new SessionSendBatchMessage(batch, sendBlocking);
+
+      if (sendBlocking)
+      {
+         channel.sendBlocking(packet);
+      }
+      else
+      {
+         if (sendAcknowledgementWindowSize != -1)
+         {
+            // Pipelined sends: this will block if too many are waiting for the server to acknowledge them
+            channel.waitForConfirmations(sendAcknowledgementWindowSize);
+         }
+
+         channel.sendBatched(packet);
+      }
+
+      int encodeSize = 0;
+
+      for (MessageInternal msgI : batch)
+      {
+         encodeSize += msgI.getEncodeSize();
+      }
+
+      try
+      {
+         // This will block if credits are not available
+
+         theCredits.acquireCredits(encodeSize);
+      }
+      catch (InterruptedException e)
+      {
+      }
+   }
+
+   private boolean isLarge(final MessageInternal msgI)
+   {
+      return msgI.getBodyInputStream() != null || msgI.isLargeMessage() ||
+             msgI.getBodyBuffer().writerIndex() > minLargeMessageSize;
+   }
+
    private void checkClosed() throws HornetQException
    {
       if (closed)
@@ -715,10 +715,13 @@ public class ClientSessionFactoryImpl implements ClientSessionFactoryInternal, C
                                                                      serverLocator.isAutoGroup(),
                                                                      ackBatchSize,
                                                                      serverLocator.getConsumerWindowSize(),
+                                                                     serverLocator.isAdaptiveConsumerWindowSize(),
                                                                      serverLocator.getConsumerMaxRate(),
+                                                                     serverLocator.isRecycleMessages(),
                                                                      serverLocator.getConfirmationWindowSize(),
                                                                      serverLocator.getProducerWindowSize(),
                                                                      serverLocator.getProducerMaxRate(),
+                                                                     serverLocator.getSendAcknowledgementWindowSize(),
                                                                      serverLocator.isBlockOnNonDurableSend(),
                                                                      serverLocator.isBlockOnDurableSend(),
                                                                      serverLocator.isCacheLargeMessagesClient(),
@@ -47,6 +47,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.ReattachSessionResponseMes
 import org.hornetq.core.protocol.core.impl.wireformat.RollbackMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionAcknowledgeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionAddMetaDataMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionBatchAcknowledgeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionBindingQueryMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionBindingQueryResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionCloseMessage;
@@ -62,6 +63,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveContinuation
 import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveLargeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionRequestProducerCreditsMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionSendBatchMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionXACommitMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionXAEndMessage;
@@ -147,12 +149,18 @@ public class ClientSessionImpl implements ClientSessionInternal, FailureListener
 
    private final int consumerWindowSize;
 
+   private final boolean adaptiveConsumerWindowSize;
+
    private final int consumerMaxRate;
 
+   private final boolean recycleMessages;
+
    private final int confirmationWindowSize;
 
    private final int producerMaxRate;
 
+   private final int sendAcknowledgementWindowSize;
+
    private final boolean blockOnNonDurableSend;
 
    private final boolean blockOnDurableSend;
@@ -206,10 +214,13 @@ public class ClientSessionImpl implements ClientSessionInternal, FailureListener
                             final boolean autoGroup,
                             final int ackBatchSize,
                             final int consumerWindowSize,
+                            final boolean adaptiveConsumerWindowSize,
                             final int consumerMaxRate,
+                            final boolean recycleMessages,
                             final int confirmationWindowSize,
                             final int producerWindowSize,
                             final int producerMaxRate,
+                            final int sendAcknowledgementWindowSize,
                             final boolean blockOnNonDurableSend,
                             final boolean blockOnDurableSend,
                             final boolean cacheLargeMessageClient,
@@ -254,12 +265,27 @@ public class ClientSessionImpl implements ClientSessionInternal, FailureListener
 
       this.consumerWindowSize = consumerWindowSize;
 
+      this.adaptiveConsumerWindowSize = adaptiveConsumerWindowSize;
+
       this.consumerMaxRate = consumerMaxRate;
 
+      this.recycleMessages = recycleMessages;
+
       this.confirmationWindowSize = confirmationWindowSize;
 
       this.producerMaxRate = producerMaxRate;
 
+      if (sendAcknowledgementWindowSize > 0 && confirmationWindowSize > 0)
+      {
+         // The server only confirms every confirmationWindowSize bytes, with a smaller window the producers
+         // would wait for the periodic flush of the confirmations
+         this.sendAcknowledgementWindowSize = Math.max(sendAcknowledgementWindowSize, 2 * confirmationWindowSize);
+      }
+      else
+      {
+         this.sendAcknowledgementWindowSize = -1;
+      }
+
       this.blockOnNonDurableSend = blockOnNonDurableSend;
 
       this.blockOnDurableSend = blockOnDurableSend;
@@ -769,6 +795,41 @@ public class ClientSessionImpl implements ClientSessionInternal, FailureListener
       }
    }
 
+   public void individualAcknowledge(final long consumerID, final long[] messageIDs) throws HornetQException
+   {
+      // if we're pre-acknowledging then we don't need to do anything
+      if (preAcknowledge)
+      {
+         return;
+      }
+
+      checkClosed();
+
+      if (version < PacketImpl.SESS_BATCH_ACKNOWLEDGE_VERSION)
+      {
+         // older servers only know about individual acknowledgements
+         for (long messageID : messageIDs)
+         {
+            individualAcknowledge(consumerID, messageID);
+         }
+
+         return;
+      }
+
+      SessionBatchAcknowledgeMessage message = new SessionBatchAcknowledgeMessage(consumerID,
+                                                                                  messageIDs,
+                                                                                  blockOnAcknowledge);
+
+      if (blockOnAcknowledge)
+      {
+         channel.sendBlocking(message);
+      }
+      else
+      {
+         channel.sendBatched(message);
+      }
+   }
+
    public void expire(final long consumerID, final long messageID) throws HornetQException
    {
       checkClosed();
@@ -1194,6 +1255,15 @@ public class ClientSessionImpl implements ClientSessionInternal, FailureListener
 
          sendAckHandler.sendAcknowledged(ssm.getMessage());
       }
+      else if (packet.getType() == PacketImpl.SESS_SEND_BATCH)
+      {
+         SessionSendBatchMessage ssbm = (SessionSendBatchMessage)packet;
+
+         for (Message message : ssbm.getMessages())
+         {
+            sendAckHandler.sendAcknowledged(message);
+         }
+      }
    }
 
    // XAResource implementation
@@ -1689,6 +1759,10 @@ public class ClientSessionImpl implements ClientSessionInternal, FailureListener
                                                                browseOnly,
                                                                clientWindowSize,
                                                                ackBatchSize,
+                                                               recycleMessages,
+                                                               adaptiveConsumerWindowSize && windowSize > 1 ? new ConsumerWindowTuner(windowSize,
+                                                                                                                                       System.nanoTime())
+                                                                                                             : null,
                                                                consumerMaxRate > 0 ? new TokenBucketLimiterImpl(maxRate,
                                                                                                                 false)
                                                                                   : null,
@@ -1723,6 +1797,7 @@ public class ClientSessionImpl implements ClientSessionInternal, FailureListener
                                                                autoGroup,
                                                                groupID == null ? null : new SimpleString(groupID),
                                                                minLargeMessageSize,
+                                                               sendAcknowledgementWindowSize,
                                                                channel);
 
       addProducer(producer);
@@ -36,6 +36,8 @@ public interface ClientSessionInternal extends ClientSession
    
    void individualAcknowledge(long consumerID, long messageID) throws HornetQException;
 
+   void individualAcknowledge(long consumerID, long[] messageIDs) throws HornetQException;
+
    boolean isCacheLargeMessageClient();
 
    int getMinLargeMessageSize();
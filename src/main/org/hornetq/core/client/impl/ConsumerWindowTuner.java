@@ -0,0 +1,211 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.client.impl;
+
+/**
+ * Resizes the flow control window of a consumer
+ * (see {@link org.hornetq.api.core.client.ServerLocator#setAdaptiveConsumerWindowSize(boolean)}).
+ *
+ * The window is resized each time the consumer sends credits, to twice the bytes consumed during the round trip of
+ * the credits: the credits then reach the server before it runs out of them, while a slow consumer doesn't buffer
+ * more messages than it consumes in a round trip.
+ *
+ * The consumption rate is measured between the credits sent. The round trip is measured from the credits sent while
+ * the server has run out of them to the next message received, the server is then waiting for these credits to
+ * deliver it.
+ *
+ * The window grows by sending more credits than consumed and shrinks by holding back credits.
+ *
+ * All the times are in nanoseconds.
+ *
+ */
+public class ConsumerWindowTuner
+{
+   // Constants -----------------------------------------------------
+
+   // the window is kept between 1/RANGE and RANGE times the initial window
+   public static final int RANGE = 16;
+
+   // the window is twice the bytes consumed in a round trip
+   private static final double ROUND_TRIP_FACTOR = 2;
+
+   // the window is only resized if the new size differs by more than 1/4, so it doesn't change at each credits sent
+   private static final int RESIZE_THRESHOLD_SHIFT = 2;
+
+   // weight of a new sample in the moving averages of the rate and round trip
+   private static final double SAMPLE_WEIGHT = 0.25;
+
+   // Attributes ----------------------------------------------------
+
+   private final int minWindowSize;
+
+   private final int maxWindowSize;
+
+   private int windowSize;
+
+   // the credits granted minus the bytes received, i.e. the credits the server has left (less the credits in transit)
+   private long serverCredits;
+
+   // the credits held back to shrink the window
+   private int heldCredits;
+
+   private long lastCreditsTime;
+
+   // the time the credits were sent to a server out of credits, -1 if it isn't waiting for credits
+   private long waitingCreditsTime = -1;
+
+   // bytes consumed per nanosecond, -1 until measured
+   private double rate = -1;
+
+   private double roundTrip = -1;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   /**
+    * @param windowSize the initial window size, as granted to the server when the consumer is created
+    * @param now the time the consumer is created
+    */
+   public ConsumerWindowTuner(final int windowSize, final long now)
+   {
+      this.windowSize = windowSize;
+
+      // the client window size is half the window, it must not be 0
+      minWindowSize = Math.max(2, windowSize / ConsumerWindowTuner.RANGE);
+
+      maxWindowSize = (int)Math.min(Integer.MAX_VALUE, (long)windowSize * ConsumerWindowTuner.RANGE);
+
+      serverCredits = windowSize;
+
+      lastCreditsTime = now;
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * A message (or a chunk of a large message) has been received.
+    *
+    * @param bytes the size of the packet received, i.e. the credits it used
+    */
+   public synchronized void received(final int bytes, final long now)
+   {
+      serverCredits -= bytes;
+
+      if (waitingCreditsTime != -1)
+      {
+         roundTrip = ConsumerWindowTuner.average(roundTrip, now - waitingCreditsTime);
+
+         waitingCreditsTime = -1;
+      }
+   }
+
+   /**
+    * Resizes the window before sending credits.
+    *
+    * @param credits the bytes consumed since the last credits sent
+    * @return the credits to send, the credits consumed plus the window growth or less the window shrinkage
+    */
+   public synchronized int resize(final int credits, final long now)
+   {
+      long elapsed = now - lastCreditsTime;
+
+      lastCreditsTime = now;
+
+      if (elapsed > 0)
+      {
+         rate = ConsumerWindowTuner.average(rate, (double)credits / elapsed);
+      }
+
+      if (rate > 0 && roundTrip > 0)
+      {
+         int target = (int)Math.max(minWindowSize,
+                                    Math.min(maxWindowSize, ConsumerWindowTuner.ROUND_TRIP_FACTOR * rate * roundTrip));
+
+         if (Math.abs(target - windowSize) > windowSize >> ConsumerWindowTuner.RESIZE_THRESHOLD_SHIFT)
+         {
+            heldCredits -= target - windowSize;
+
+            windowSize = target;
+         }
+      }
+
+      int toSend = credits - heldCredits;
+
+      if (toSend <= 0)
+      {
+         heldCredits = -toSend;
+
+         return 0;
+      }
+
+      heldCredits = 0;
+
+      if (serverCredits <= 0)
+      {
+         waitingCreditsTime = now;
+      }
+
+      serverCredits += toSend;
+
+      return toSend;
+   }
+
+   /**
+    * The consumer is recreated on the server after a failover, with the credits of the client window size.
+    */
+   public synchronized void reset(final int credits)
+   {
+      serverCredits = credits;
+
+      heldCredits = 0;
+
+      waitingCreditsTime = -1;
+   }
+
+   public synchronized int getWindowSize()
+   {
+      return windowSize;
+   }
+
+   /**
+    * @return the consumption rate, in bytes per second, or -1 if not measured yet
+    */
+   public synchronized long getConsumptionRate()
+   {
+      return rate < 0 ? -1 : (long)(rate * 1000000000);
+   }
+
+   /**
+    * @return the round trip of the credits, in microseconds, or -1 if not measured yet
+    */
+   public synchronized long getRoundTrip()
+   {
+      return roundTrip < 0 ? -1 : (long)(roundTrip / 1000);
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   // Private -------------------------------------------------------
+
+   private static double average(final double average, final double sample)
+   {
+      return average < 0 ? sample : average + ConsumerWindowTuner.SAMPLE_WEIGHT * (sample - average);
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.client.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.logging.Logger;
+import org.hornetq.core.protocol.core.CoreRemotingConnection;
+
+/**
+ * A session factory handed out by a {@link ServerLocatorImpl} with a connection pool.
+ *
+ * The sessions are created on one of the pooled factories, so they share its connection with the sessions of the
+ * other pooled session factories (each session has its own channel on the connection).
+ * Closing it only closes the sessions created through it, the pooled factory stays open until the locator is closed.
+ *
+ */
+class PooledClientSessionFactory implements ClientSessionFactory
+{
+   // Constants -----------------------------------------------------
+
+   private static final Logger log = Logger.getLogger(PooledClientSessionFactory.class);
+
+   // Attributes ----------------------------------------------------
+
+   private final ServerLocatorImpl serverLocator;
+
+   private final ClientSessionFactoryInternal factory;
+
+   private final List<ClientSession> sessions = new ArrayList<ClientSession>();
+
+   private volatile boolean closed;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   PooledClientSessionFactory(final ServerLocatorImpl serverLocator, final ClientSessionFactoryInternal factory)
+   {
+      this.serverLocator = serverLocator;
+
+      this.factory = factory;
+   }
+
+   // ClientSessionFactory implementation ---------------------------
+
+   public ClientSession createXASession() throws HornetQException
+   {
+      checkClosed();
+
+      return addSession(factory.createXASession());
+   }
+
+   public ClientSession createTransactedSession() throws HornetQException
+   {
+      checkClosed();
+
+      return addSession(factory.createTransactedSession());
+   }
+
+   public ClientSession createSession() throws HornetQException
+   {
+      checkClosed();
+
+      return addSession(factory.createSession());
+   }
+
+   public ClientSession createSession(final boolean autoCommitSends, final boolean autoCommitAcks) throws HornetQException
+   {
+      checkClosed();
+
+      return addSession(factory.createSession(autoCommitSends, autoCommitAcks));
+   }
+
+   public ClientSession createSession(final boolean autoCommitSends,
+                                      final boolean autoCommitAcks,
+                                      final int ackBatchSize) throws HornetQException
+   {
+      checkClosed();
+
+      return addSession(factory.createSession(autoCommitSends, autoCommitAcks, ackBatchSize));
+   }
+
+   public ClientSession createSession(final boolean xa, final boolean autoCommitSends, final boolean autoCommitAcks) throws HornetQException
+   {
+      checkClosed();
+
+      return addSession(factory.createSession(xa, autoCommitSends, autoCommitAcks));
+   }
+
+   public ClientSession createSession(final boolean xa,
+                                      final boolean autoCommitSends,
+                                      final boolean autoCommitAcks,
+                                      final boolean preAcknowledge) throws HornetQException
+   {
+      checkClosed();
+
+      return addSession(factory.createSession(xa, autoCommitSends, autoCommitAcks, preAcknowledge));
+   }
+
+   public ClientSession createSession(final String username,
+                                      final String password,
+                                      final boolean xa,
+                                      final boolean autoCommitSends,
+                                      final boolean autoCommitAcks,
+                                      final boolean preAcknowledge,
+                                      final int ackBatchSize) throws HornetQException
+   {
+      checkClosed();
+
+      return addSession(factory.createSession(username,
+                                              password,
+                                              xa,
+                                              autoCommitSends,
+                                              autoCommitAcks,
+                                              preAcknowledge,
+                                              ackBatchSize));
+   }
+
+   public void close()
+   {
+      List<ClientSession> toClose;
+
+      synchronized (this)
+      {
+         if (closed)
+         {
+            return;
+         }
+
+         closed = true;
+
+         toClose = new ArrayList<ClientSession>(sessions);
+
+         sessions.clear();
+      }
+
+      for (ClientSession session : toClose)
+      {
+         try
+         {
+            session.close();
+         }
+         catch (HornetQException e)
+         {
+            PooledClientSessionFactory.log.warn("Unable to close session", e);
+         }
+      }
+
+      serverLocator.releasePooledFactory(factory);
+   }
+
+   public ServerLocator getServerLocator()
+   {
+      return serverLocator;
+   }
+
+   public CoreRemotingConnection getConnection()
+   {
+      return factory.getConnection();
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   // Private -------------------------------------------------------
+
+   private void checkClosed() throws HornetQException
+   {
+      if (closed)
+      {
+         throw new HornetQException(HornetQException.OBJECT_CLOSED, "Session factory is closed");
+      }
+   }
+
+   private synchronized ClientSession addSession(final ClientSession session) throws HornetQException
+   {
+      if (closed)
+      {
+         // closed while the session was being created
+         session.close();
+
+         checkClosed();
+      }
+
+      // the sessions closed by the application are forgotten here rather than on each close
+      for (Iterator<ClientSession> iterator = sessions.iterator(); iterator.hasNext();)
+      {
+         if (iterator.next().isClosed())
+         {
+            iterator.remove();
+         }
+      }
+
+      sessions.add(session);
+
+      return session;
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
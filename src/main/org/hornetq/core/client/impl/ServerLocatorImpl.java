@@ -59,6 +59,9 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
 
    private Set<ClientSessionFactory> factories = new HashSet<ClientSessionFactory>();
 
+   // the factories of the connection pool, with the number of pooled session factories using them
+   private final Map<ClientSessionFactoryInternal, Integer> pooledFactories = new HashMap<ClientSessionFactoryInternal, Integer>();
+
    private TransportConfiguration[] initialConnectors;
 
    private DiscoveryGroupConfiguration discoveryGroupConfiguration;
@@ -91,18 +94,26 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
 
    private long connectionTTL;
 
+   private int connectionPoolSize;
+
+   private boolean recycleMessages;
+
    private long callTimeout;
 
    private int minLargeMessageSize;
 
    private int consumerWindowSize;
 
+   private boolean adaptiveConsumerWindowSize;
+
    private int consumerMaxRate;
 
    private int confirmationWindowSize;
 
    private int producerWindowSize;
 
+   private int sendAcknowledgementWindowSize;
+
    private int producerMaxRate;
 
    private boolean blockOnAcknowledge;
@@ -360,18 +371,26 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
 
       connectionTTL = HornetQClient.DEFAULT_CONNECTION_TTL;
 
+      connectionPoolSize = HornetQClient.DEFAULT_CONNECTION_POOL_SIZE;
+
+      recycleMessages = HornetQClient.DEFAULT_RECYCLE_MESSAGES;
+
       callTimeout = HornetQClient.DEFAULT_CALL_TIMEOUT;
 
       minLargeMessageSize = HornetQClient.DEFAULT_MIN_LARGE_MESSAGE_SIZE;
 
       consumerWindowSize = HornetQClient.DEFAULT_CONSUMER_WINDOW_SIZE;
 
+      adaptiveConsumerWindowSize = HornetQClient.DEFAULT_ADAPTIVE_CONSUMER_WINDOW_SIZE;
+
       consumerMaxRate = HornetQClient.DEFAULT_CONSUMER_MAX_RATE;
 
       confirmationWindowSize = HornetQClient.DEFAULT_CONFIRMATION_WINDOW_SIZE;
 
       producerWindowSize = HornetQClient.DEFAULT_PRODUCER_WINDOW_SIZE;
 
+      sendAcknowledgementWindowSize = HornetQClient.DEFAULT_SEND_ACKNOWLEDGEMENT_WINDOW_SIZE;
+
       producerMaxRate = HornetQClient.DEFAULT_PRODUCER_MAX_RATE;
 
       blockOnAcknowledge = HornetQClient.DEFAULT_BLOCK_ON_ACKNOWLEDGE;
@@ -500,7 +519,7 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
       // wait for discovery group to get the list of initial connectors
       else
       {
-         sf = (ClientSessionFactoryInternal)createSessionFactory();
+         sf = connectSessionFactory();
       }
       addFactory(sf);
       return sf;
@@ -543,6 +562,16 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
    }
 
    public ClientSessionFactory createSessionFactory() throws Exception
+   {
+      if (connectionPoolSize > 0)
+      {
+         return createPooledSessionFactory();
+      }
+
+      return connectSessionFactory();
+   }
+
+   private ClientSessionFactoryInternal connectSessionFactory() throws Exception
    {
       if (closed)
       {
@@ -665,6 +694,42 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
       }
    }
 
+   private synchronized ClientSessionFactory createPooledSessionFactory() throws Exception
+   {
+      if (closed)
+      {
+         throw new IllegalStateException("Cannot create session factory, server locator is closed (maybe it has been garbage collected)");
+      }
+
+      ClientSessionFactoryInternal factory = null;
+
+      if (pooledFactories.size() < connectionPoolSize)
+      {
+         factory = connectSessionFactory();
+
+         pooledFactories.put(factory, 0);
+      }
+      else
+      {
+         // spread the session factories evenly over the pooled connections
+         int fewest = Integer.MAX_VALUE;
+
+         for (Map.Entry<ClientSessionFactoryInternal, Integer> entry : pooledFactories.entrySet())
+         {
+            if (entry.getValue() < fewest)
+            {
+               factory = entry.getKey();
+
+               fewest = entry.getValue();
+            }
+         }
+      }
+
+      pooledFactories.put(factory, pooledFactories.get(factory) + 1);
+
+      return new PooledClientSessionFactory(this, factory);
+   }
+
    public synchronized boolean isHA()
    {
       return ha;
@@ -702,6 +767,28 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
       this.connectionTTL = connectionTTL;
    }
 
+   public synchronized int getConnectionPoolSize()
+   {
+      return connectionPoolSize;
+   }
+
+   public synchronized void setConnectionPoolSize(final int connectionPoolSize)
+   {
+      checkWrite();
+      this.connectionPoolSize = connectionPoolSize;
+   }
+
+   public synchronized boolean isRecycleMessages()
+   {
+      return recycleMessages;
+   }
+
+   public synchronized void setRecycleMessages(final boolean recycleMessages)
+   {
+      checkWrite();
+      this.recycleMessages = recycleMessages;
+   }
+
    public synchronized long getCallTimeout()
    {
       return callTimeout;
@@ -735,6 +822,17 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
       this.consumerWindowSize = consumerWindowSize;
    }
 
+   public synchronized boolean isAdaptiveConsumerWindowSize()
+   {
+      return adaptiveConsumerWindowSize;
+   }
+
+   public synchronized void setAdaptiveConsumerWindowSize(final boolean adaptiveConsumerWindowSize)
+   {
+      checkWrite();
+      this.adaptiveConsumerWindowSize = adaptiveConsumerWindowSize;
+   }
+
    public synchronized int getConsumerMaxRate()
    {
       return consumerMaxRate;
@@ -768,6 +866,17 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
       this.producerWindowSize = producerWindowSize;
    }
 
+   public synchronized int getSendAcknowledgementWindowSize()
+   {
+      return sendAcknowledgementWindowSize;
+   }
+
+   public synchronized void setSendAcknowledgementWindowSize(final int sendAcknowledgementWindowSize)
+   {
+      checkWrite();
+      this.sendAcknowledgementWindowSize = sendAcknowledgementWindowSize;
+   }
+
    public synchronized int getProducerMaxRate()
    {
       return producerMaxRate;
@@ -1104,6 +1213,11 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
 
       factories.clear();
 
+      synchronized (this)
+      {
+         pooledFactories.clear();
+      }
+
       if (!useGlobalPools)
       {
          if (threadPool != null)
@@ -1264,6 +1378,8 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
    {
       factories.remove(factory);
 
+      pooledFactories.remove(factory);
+
       if (factories.isEmpty())
       {
          // Go back to using the broadcast or static list
@@ -1304,6 +1420,20 @@ public class ServerLocatorImpl implements ServerLocatorInternal, DiscoveryListen
       }
    }
 
+   /**
+    * Called by a pooled session factory once it is closed.
+    */
+   synchronized void releasePooledFactory(final ClientSessionFactoryInternal factory)
+   {
+      Integer users = pooledFactories.get(factory);
+
+      // the pooled factories are forgotten when the locator is closed
+      if (users != null)
+      {
+         pooledFactories.put(factory, users - 1);
+      }
+   }
+
    public static void shutdown()
    {
       if (globalScheduledThreadPool != null)
@@ -708,6 +708,32 @@ public interface Configuration extends Serializable
     */
    void setPagingDirectory(String dir);
 
+   /**
+    * Returns the maximum number of bytes used in memory by all the addresses together.
+    * When this size is reached, addresses using more than their share of it will page (or block depending on their policy).
+    * <br>
+    * Default value is {@value org.hornetq.core.config.impl.ConfigurationImpl#DEFAULT_GLOBAL_MAX_SIZE} (no limit).
+    */
+   long getGlobalMaxSize();
+
+   /**
+    * Sets the maximum number of bytes used in memory by all the addresses together.
+    */
+   void setGlobalMaxSize(long maxSize);
+
+   /**
+    * Returns the maximum number of bytes used by page files on disk by all the addresses together.
+    * When this size is reached, producers sending to paged addresses are blocked until pages are consumed.
+    * <br>
+    * Default value is {@value org.hornetq.core.config.impl.ConfigurationImpl#DEFAULT_GLOBAL_MAX_DISK_SIZE} (no limit).
+    */
+   long getGlobalMaxDiskSize();
+
+   /**
+    * Sets the maximum number of bytes used by page files on disk by all the addresses together.
+    */
+   void setGlobalMaxDiskSize(long maxDiskSize);
+
    // Large Messages Properties ------------------------------------------------------------
 
    /**
@@ -87,6 +87,10 @@ public class ConfigurationImpl implements Configuration
 
    public static final String DEFAULT_PAGING_DIR = "data/paging";
 
+   public static final long DEFAULT_GLOBAL_MAX_SIZE = -1;
+
+   public static final long DEFAULT_GLOBAL_MAX_DISK_SIZE = -1;
+
    public static final String DEFAULT_LARGE_MESSAGES_DIR = "data/largemessages";
 
    public static final boolean DEFAULT_CREATE_JOURNAL_DIR = true;
@@ -254,6 +258,10 @@ public class ConfigurationImpl implements Configuration
 
    protected String pagingDirectory = ConfigurationImpl.DEFAULT_PAGING_DIR;
 
+   protected long globalMaxSize = ConfigurationImpl.DEFAULT_GLOBAL_MAX_SIZE;
+
+   protected long globalMaxDiskSize = ConfigurationImpl.DEFAULT_GLOBAL_MAX_DISK_SIZE;
+
    // File related attributes -----------------------------------------------------------
 
    protected String largeMessagesDirectory = ConfigurationImpl.DEFAULT_LARGE_MESSAGES_DIR;
@@ -639,6 +647,26 @@ public class ConfigurationImpl implements Configuration
       return pagingDirectory;
    }
 
+   public long getGlobalMaxSize()
+   {
+      return globalMaxSize;
+   }
+
+   public void setGlobalMaxSize(final long maxSize)
+   {
+      globalMaxSize = maxSize;
+   }
+
+   public long getGlobalMaxDiskSize()
+   {
+      return globalMaxDiskSize;
+   }
+
+   public void setGlobalMaxDiskSize(final long maxDiskSize)
+   {
+      globalMaxDiskSize = maxDiskSize;
+   }
+
    public void setJournalType(final JournalType type)
    {
       journalType = type;
@@ -1277,6 +1305,14 @@ public class ConfigurationImpl implements Configuration
       {
          return false;
       }
+      if (globalMaxSize != other.globalMaxSize)
+      {
+         return false;
+      }
+      if (globalMaxDiskSize != other.globalMaxDiskSize)
+      {
+         return false;
+      }
       if (persistDeliveryCountBeforeDelivery != other.persistDeliveryCountBeforeDelivery)
       {
          return false;
@@ -430,6 +430,16 @@ public class FileConfigurationParser
                                                                config.getPagingDirectory(),
                                                                Validators.NOT_NULL_OR_EMPTY));
 
+      config.setGlobalMaxSize(XMLConfigurationUtil.getLong(e,
+                                                           "global-max-size",
+                                                           config.getGlobalMaxSize(),
+                                                           Validators.MINUS_ONE_OR_GT_ZERO));
+
+      config.setGlobalMaxDiskSize(XMLConfigurationUtil.getLong(e,
+                                                               "global-max-disk-size",
+                                                               config.getGlobalMaxDiskSize(),
+                                                               Validators.MINUS_ONE_OR_GT_ZERO));
+
       config.setCreateJournalDir(XMLConfigurationUtil.getBoolean(e, "create-journal-dir", config.isCreateJournalDir()));
 
       String s = XMLConfigurationUtil.getString(e,
@@ -208,6 +208,32 @@ public class AddressControlImpl extends AbstractControl implements AddressContro
       }
    }
 
+   public long getNumberOfPagesPendingReclaim() throws Exception
+   {
+      clearIO();
+      try
+      {
+         return pagingManager.getPageStore(address).getCursorProvier().getPendingReclaimPages();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public long getNumberOfReclaimedPages() throws Exception
+   {
+      clearIO();
+      try
+      {
+         return pagingManager.getPageStore(address).getCursorProvier().getReclaimedPages();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
    @Override
    protected MBeanOperationInfo[] fillMBeanOperationInfo()
    {
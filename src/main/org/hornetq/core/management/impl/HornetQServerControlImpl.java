@@ -750,6 +750,51 @@ public class HornetQServerControlImpl extends AbstractControl implements HornetQ
       }
    }
 
+   public long getExpiredConnectionCount()
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         return remotingService.getExpiredConnectionCount();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public int getLastConnectionCheckCount()
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         return remotingService.getLastConnectionCheckCount();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public long getLastConnectionCheckDuration()
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         return remotingService.getLastConnectionCheckDuration();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
    public void enableMessageCounters()
    {
       checkStarted();
@@ -401,7 +401,7 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
          Filter filter = FilterImpl.createFilter(filterStr);
          List<Map<String, Object>> messages = new ArrayList<Map<String, Object>>();
          queue.blockOnExecutorFuture();
-         LinkedListIterator<MessageReference> iterator = queue.iterator();
+         LinkedListIterator<MessageReference> iterator = queue.browserIterator();
          try
          {
             while (iterator.hasNext())
@@ -459,10 +459,10 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
          }
          else
          {
-            LinkedListIterator<MessageReference> iterator = queue.iterator();
+            LinkedListIterator<MessageReference> iterator = queue.browserIterator();
             try
             {
-               int count = 0;
+               long count = 0;
                while (iterator.hasNext())
                {
                   MessageReference ref = (MessageReference)iterator.next();
@@ -841,6 +841,8 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
                obj.put("sessionID", serverConsumer.getSessionID());
                obj.put("browseOnly", serverConsumer.isBrowseOnly());
                obj.put("creationTime", serverConsumer.getCreationTime());
+               obj.put("credits", serverConsumer.getCredits());
+               obj.put("creditsReceived", serverConsumer.getCreditsReceived());
 
                jsonArray.put(obj);
             }
@@ -23,13 +23,18 @@ import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.PropertyConversionException;
 import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.buffers.impl.ChannelBufferWrapper;
 import org.hornetq.core.buffers.impl.ResetLimitWrappedHornetQBuffer;
 import org.hornetq.core.logging.Logger;
 import org.hornetq.core.message.BodyEncoder;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.utils.DataConstants;
+import org.hornetq.utils.SimpleStringPool;
 import org.hornetq.utils.TypedProperties;
 import org.hornetq.utils.UUID;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.buffer.DynamicChannelBuffer;
 
 /**
  * A concrete implementation of a message
@@ -57,6 +62,12 @@ public abstract class MessageImpl implements MessageInternal
    public static final SimpleString HDR_BRIDGE_DUPLICATE_ID = new SimpleString("_HQ_BRIDGE_DUP");
 
    public static final int BUFFER_HEADER_SPACE = PacketImpl.PACKET_HEADERS_SIZE;
+
+   // what the packets carrying a message write after it, e.g. the consumer id and delivery count
+   private static final int ENCODED_BUFFER_TRAILER_SPACE = 64;
+
+   // what the body buffer of a recycled message wraps, so it doesn't keep the last message's buffer
+   private static final HornetQBuffer EMPTY_BUFFER = HornetQBuffers.fixedBuffer(0);
    
    public static final int BODY_OFFSET = BUFFER_HEADER_SPACE + DataConstants.SIZE_INT;
 
@@ -163,13 +174,27 @@ public abstract class MessageImpl implements MessageInternal
          endOfMessagePosition = other.endOfMessagePosition;
          copied = other.copied;
 
-         if (other.buffer != null)
+         if (other.buffer != null && other.endOfBodyPosition != -1)
+         {
+            // Copy on write: the copy shares the buffer, the body in particular, and from now on neither message writes
+            // to it. If the headers or properties of either of them change they are written out after the shared body
+            // (see encodeToBuffer), if its body changes it is copied first (see checkCopy).
+            // The buffer is a heap buffer, so it lives as long as any of the messages sharing it
+            buffer = other.buffer.duplicate();
+
+            bufferUsed = true;
+            copied = false;
+
+            other.bufferUsed = true;
+            other.copied = false;
+         }
+         else if (other.buffer != null)
          {
             createBody(other.buffer.capacity());
 
             // We need to copy the underlying buffer too, since the different messsages thereafter might have different
             // properties set on them, making their encoding different
-            buffer = other.buffer.copy(0, other.buffer.capacity());
+            buffer = MessageImpl.copyBuffer(other.buffer);
 
             buffer.setIndex(other.buffer.readerIndex(), other.buffer.writerIndex());
          }
@@ -228,7 +253,7 @@ public abstract class MessageImpl implements MessageInternal
    public void decodeHeadersAndProperties(final HornetQBuffer buffer)
    {
       messageID = buffer.readLong();
-      address = buffer.readNullableSimpleString();
+      address = SimpleStringPool.getInstance().readNullableSimpleString(buffer);
       if (buffer.readByte() == DataConstants.NOT_NULL)
       {
          byte[] bytes = new byte[16];
@@ -406,6 +431,16 @@ public abstract class MessageImpl implements MessageInternal
    {
       this.buffer = buffer;
 
+      // the instance may be recycled (see ClientMessagePool)
+      copied = true;
+
+      bufferUsed = false;
+
+      if (bodyBuffer != null)
+      {
+         bodyBuffer.setBuffer(buffer);
+      }
+
       decode();
    }
 
@@ -428,6 +463,22 @@ public abstract class MessageImpl implements MessageInternal
 
          copied = true;
       }
+      else if (buffer != null && MessageImpl.isFixedSize(buffer))
+      {
+         // A slice of the inbound frame can't grow, the body gets a buffer of its own before it is written to
+         HornetQBuffer copy = MessageImpl.copyBuffer(buffer);
+
+         copy.setIndex(buffer.readerIndex(), buffer.writerIndex());
+
+         buffer = copy;
+
+         if (bodyBuffer != null)
+         {
+            bodyBuffer.setBuffer(buffer);
+         }
+
+         bufferUsed = false;
+      }
    }
 
    public synchronized void resetCopied()
@@ -477,14 +528,36 @@ public abstract class MessageImpl implements MessageInternal
    {
       HornetQBuffer buff = encodeToBuffer();
 
-      if (bufferUsed)
+      if (bufferUsed && !isServerMessage())
       {
-         HornetQBuffer copied = buff.copy(0, buff.capacity());
+         HornetQBuffer copied = MessageImpl.copyBuffer(buff);
 
          copied.setIndex(0, endOfMessagePosition);
 
          return copied;
       }
+      else if (bufferUsed || MessageImpl.isFixedSize(buffer))
+      {
+         // Already delivered, shared with copies of the message or still the inbound frame: the packet gets a view
+         // of the buffer with its own packet headers and some room for what it writes after the message, so nothing
+         // is written to the buffer and the deliveries to many consumers don't copy it
+         ChannelBuffer header = ChannelBuffers.buffer(MessageImpl.BUFFER_HEADER_SPACE);
+         header.writerIndex(header.capacity());
+
+         ChannelBuffer trailer = ChannelBuffers.buffer(MessageImpl.ENCODED_BUFFER_TRAILER_SPACE);
+         trailer.writerIndex(trailer.capacity());
+
+         ChannelBuffer message = buffer.channelBuffer().slice(MessageImpl.BUFFER_HEADER_SPACE,
+                                                              endOfMessagePosition - MessageImpl.BUFFER_HEADER_SPACE);
+
+         HornetQBuffer encoded = new ChannelBufferWrapper(ChannelBuffers.wrappedBuffer(header, message, trailer));
+
+         encoded.setIndex(0, endOfMessagePosition);
+
+         bufferUsed = true;
+
+         return encoded;
+      }
       else
       {
          buffer.setIndex(0, endOfMessagePosition);
@@ -878,7 +951,18 @@ public abstract class MessageImpl implements MessageInternal
    {
       if (!bufferValid)
       {
-         if (bufferUsed)
+         if ((bufferUsed || MessageImpl.isFixedSize(buffer)) && endOfBodyPosition != -1 && isServerMessage())
+         {
+            // The body can't be written to (the buffer is shared with copies of the message, being sent, or the
+            // inbound frame), but it doesn't change: only the headers and properties are written, to a new buffer.
+            // A client message re-sent by the application is still copied whole, its size on the server doesn't
+            // depend on how it was sent before
+            encodeHeadersAfterBody();
+
+            return buffer;
+         }
+
+         if (bufferUsed || MessageImpl.isFixedSize(buffer))
          {
             // Cannot use same buffer - must copy
 
@@ -933,6 +1017,19 @@ public abstract class MessageImpl implements MessageInternal
       bufferValid = true;
    }
 
+   /**
+    * Releases the buffer of a message which is recycled, until it is decoded again.
+    */
+   protected void releaseBuffer()
+   {
+      buffer = null;
+
+      if (bodyBuffer != null)
+      {
+         bodyBuffer.setBuffer(MessageImpl.EMPTY_BUFFER);
+      }
+   }
+
    protected void createBody(final int initialMessageBufferSize)
    {
       buffer = HornetQBuffers.dynamicBuffer(initialMessageBufferSize);
@@ -945,13 +1042,68 @@ public abstract class MessageImpl implements MessageInternal
       buffer.setIndex(limit, limit);
    }
 
+   /**
+    * A message decoded from the network may wrap a slice of the inbound frame, which can't grow.
+    */
+   private static boolean isFixedSize(final HornetQBuffer buffer)
+   {
+      return !(buffer.channelBuffer() instanceof DynamicChannelBuffer);
+   }
+
+   private static HornetQBuffer copyBuffer(final HornetQBuffer buffer)
+   {
+      HornetQBuffer copy = HornetQBuffers.dynamicBuffer(buffer.capacity());
+
+      copy.writeBytes(buffer, 0, buffer.capacity());
+
+      return copy;
+   }
+
+   /**
+    * Writes the headers and properties to a new buffer, appended to the body of the current one.
+    */
+   private void encodeHeadersAfterBody()
+   {
+      HornetQBuffer headers = HornetQBuffers.dynamicBuffer(DataConstants.SIZE_INT + getHeadersAndPropertiesEncodeSize());
+
+      // the end of message position, set below
+      headers.writeInt(0);
+
+      encodeHeadersAndProperties(headers);
+
+      ChannelBuffer body = buffer.channelBuffer().slice(0, endOfBodyPosition);
+
+      buffer = new ChannelBufferWrapper(ChannelBuffers.wrappedBuffer(body, headers.channelBuffer()));
+
+      endOfMessagePosition = endOfBodyPosition + headers.writerIndex();
+
+      buffer.setInt(endOfBodyPosition, endOfMessagePosition);
+
+      buffer.setIndex(0, endOfMessagePosition);
+
+      if (bodyBuffer != null)
+      {
+         bodyBuffer.setBuffer(buffer);
+      }
+
+      // only the new headers are private, the body is still shared
+      bufferUsed = false;
+
+      copied = false;
+
+      bufferValid = true;
+   }
+
    private void forceCopy()
    {
       // Must copy buffer before sending it
 
-      buffer = buffer.copy(0, buffer.capacity());
+      // the body may have just been rewritten, e.g. a received message sent again, it ends at the writer index then
+      int endOfBody = endOfBodyPosition == -1 ? buffer.writerIndex() : endOfBodyPosition;
+
+      buffer = MessageImpl.copyBuffer(buffer);
 
-      buffer.setIndex(0, endOfBodyPosition);
+      buffer.setIndex(0, endOfBody);
 
       if (bodyBuffer != null)
       {
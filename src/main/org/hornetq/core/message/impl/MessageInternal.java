@@ -48,6 +48,11 @@ public interface MessageInternal extends Message
    boolean isServerMessage();
 
    HornetQBuffer getEncodedBuffer();
+
+   /**
+    * Writes the message without the packet headers, as it is persisted or sent in a batch of messages.
+    */
+   void encode(HornetQBuffer buffer);
    
    int getHeadersAndPropertiesEncodeSize();
 
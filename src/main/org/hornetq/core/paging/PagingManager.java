@@ -79,6 +79,47 @@ public interface PagingManager extends HornetQComponent, HierarchicalRepositoryC
    SimpleString[] getStoreNames();
 
    void deletePageStore(SimpleString storeName) throws Exception;
+
+   /**
+    * Adds to the memory used by all the addresses together (negative values release memory)
+    * @return the new global size, or -1 if there's no global memory budget (it isn't accounted then)
+    */
+   long addSize(long size);
+
+   /** The memory used by all the addresses together, or -1 if there's no global memory budget */
+   long getTotalMemory();
+
+   /** The global memory budget shared by all the addresses, or -1 if there's no limit */
+   long getMaxMemory();
+
+   /** @return true if the addresses together are using more memory than the global budget */
+   boolean isGlobalFull();
+
+   /**
+    * The memory each address is entitled to when the global budget is exhausted.
+    * Addresses may borrow above their share while there's global memory available.
+    */
+   long getAddressMemoryShare();
+
+   /**
+    * Adds to the size of the page files of all the addresses together (negative values for deleted pages)
+    * @return the new global disk size, or -1 if there's no disk quota (it isn't accounted then)
+    */
+   long addDiskSize(long size);
+
+   /** The size of the page files of all the addresses together, or -1 if there's no disk quota */
+   long getTotalDiskSize();
+
+   /** The disk quota for the page files of all the addresses together, or -1 if there's no limit */
+   long getMaxDiskSize();
+
+   /** @return true if the page files are using more than the disk quota */
+   boolean isDiskFull();
+
+   /**
+    * The store will be called back through {@link PagingStore#checkMemory()} as soon as global memory or disk is released
+    */
+   void addBlockedStore(PagingStore store);
    
    void processReload() throws Exception;
 }
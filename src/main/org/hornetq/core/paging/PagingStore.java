@@ -105,6 +105,9 @@ public interface PagingStore extends HornetQComponent
    void addSize(int size);
    
    void executeRunnableWhenMemoryAvailable(Runnable runnable);
+
+   /** Executes the pending runnables from {@link #executeRunnableWhenMemoryAvailable(Runnable)} if the store is no longer blocked */
+   void checkMemory();
    
    /** This method will hold and producer, but it wait operations to finish before locking (write lock) */
    void lock();
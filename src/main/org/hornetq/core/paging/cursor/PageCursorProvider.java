@@ -66,6 +66,16 @@ public interface PageCursorProvider
    
    // Perform the cleanup at the caller's thread (for startup and recovery)
    void cleanup();
+
+   /**
+    * @return the number of pages already consumed by every subscription which were not deleted yet
+    */
+   long getPendingReclaimPages();
+
+   /**
+    * @return the number of pages deleted since the provider was created
+    */
+   long getReclaimedPages();
    
    int getCacheMaxSize();
    
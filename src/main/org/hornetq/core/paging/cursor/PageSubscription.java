@@ -51,6 +51,13 @@ public interface PageSubscription
 
    public LinkedListIterator<PagedReference> iterator();
 
+   /**
+    * An iterator over the paged messages still pending on this subscription (not acked nor depaged yet).
+    * It only reads the page files, without changing the state of the subscription, so it can be used by browsers
+    * and management operations.
+    */
+   LinkedListIterator<PagedReference> browserIterator();
+
    // To be called when the cursor is closed for good. Most likely when the queue is deleted
    void close() throws Exception;
 
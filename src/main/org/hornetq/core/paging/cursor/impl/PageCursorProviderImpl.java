@@ -14,9 +14,12 @@
 package org.hornetq.core.paging.cursor.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.hornetq.core.filter.Filter;
 import org.hornetq.core.logging.Logger;
@@ -51,6 +54,10 @@ public class PageCursorProviderImpl implements PageCursorProvider
 
    private static final Logger log = Logger.getLogger(PageCursorProviderImpl.class);
 
+   // Maximum number of pages released by a scheduled cleanup pass.
+   // The store lock is held while releasing pages, so we do it in small steps and reschedule the rest
+   private static final int MAX_PAGES_PER_CLEANUP = 100;
+
    // Attributes ----------------------------------------------------
 
    private final PagingStore pagingStore;
@@ -65,6 +72,17 @@ public class PageCursorProviderImpl implements PageCursorProvider
 
    private final ConcurrentMap<Long, PageSubscription> activeCursors = new ConcurrentHashMap<Long, PageSubscription>();
 
+   // Used to coalesce cleanup requests, as every completed page on every subscription will ask for a cleanup
+   private final AtomicBoolean cleanupScheduled = new AtomicBoolean(false);
+
+   // Changed every time a subscription is created, so the cleanup knows if the watermark it calculated without locks is stale
+   private volatile int subscriptionsVersion;
+
+   // The last page calculated as safe to delete (every page before this one was consumed by every subscription)
+   private volatile long reclaimWatermark;
+
+   private final AtomicLong reclaimedPages = new AtomicLong(0);
+
    // Static --------------------------------------------------------
 
    // Constructors --------------------------------------------------
@@ -104,6 +122,7 @@ public class PageCursorProviderImpl implements PageCursorProvider
                                               cursorID,
                                               persistent);
       activeCursors.put(cursorID, activeCursor);
+      subscriptionsVersion++;
       return activeCursor;
    }
 
@@ -228,15 +247,27 @@ public class PageCursorProviderImpl implements PageCursorProvider
     */
    public void scheduleCleanup()
    {
+      if (!cleanupScheduled.compareAndSet(false, true))
+      {
+         // There's already a cleanup pending on the executor, and it will see the newest positions when it runs
+         return;
+      }
 
       executor.execute(new Runnable()
       {
          public void run()
          {
+            cleanupScheduled.set(false);
+
             storageManager.setContext(storageManager.newSingleThreadContext());
             try
             {
-               cleanup();
+               if (cleanup(MAX_PAGES_PER_CLEANUP))
+               {
+                  // There are more pages to be released.
+                  // We reschedule it instead of looping here so other tasks are not starved on the executor
+                  scheduleCleanup();
+               }
             }
             finally
             {
@@ -247,9 +278,37 @@ public class PageCursorProviderImpl implements PageCursorProvider
    }
 
    public void cleanup()
+   {
+      cleanup(Integer.MAX_VALUE);
+   }
+
+   public long getReclaimedPages()
+   {
+      return reclaimedPages.get();
+   }
+
+   public long getPendingReclaimPages()
+   {
+      long pending = reclaimWatermark - pagingStore.getFirstPage();
+      return pending > 0 ? pending : 0;
+   }
+
+   /**
+    * Releases at most maxPages pages out of the store.
+    * @return true if there are still pages to be released after this call
+    */
+   private boolean cleanup(final int maxPages)
    {
       ArrayList<Page> depagedPages = new ArrayList<Page>();
 
+      boolean pendingPages = false;
+
+      // The watermark is calculated before taking any locks as the subscriptions' positions only move forward.
+      // This way producers paging on the store are not blocked while we iterate over every subscription
+      int version = subscriptionsVersion;
+
+      long minPage = checkMinPage(activeCursors.values());
+
       pagingStore.lock();
 
       synchronized (this)
@@ -258,18 +317,24 @@ public class PageCursorProviderImpl implements PageCursorProvider
          {
             if (!pagingStore.isStarted())
             {
-               return;
+               return false;
             }
 
             if (pagingStore.getNumberOfPages() == 0)
             {
-               return;
+               return false;
             }
 
             ArrayList<PageSubscription> cursorList = new ArrayList<PageSubscription>();
             cursorList.addAll(activeCursors.values());
 
-            long minPage = checkMinPage(cursorList);
+            if (version != subscriptionsVersion)
+            {
+               // A subscription was created after the watermark was calculated and it may be positioned before it
+               minPage = checkMinPage(cursorList);
+            }
+
+            reclaimWatermark = Math.min(minPage, pagingStore.getCurrentWritingPage());
 
             if (minPage == pagingStore.getCurrentWritingPage() && pagingStore.getCurrentPage().getNumberOfMessages() > 0)
             {
@@ -308,6 +373,12 @@ public class PageCursorProviderImpl implements PageCursorProvider
 
             for (long i = pagingStore.getFirstPage(); i < minPage; i++)
             {
+               if (depagedPages.size() >= maxPages)
+               {
+                  pendingPages = true;
+                  break;
+               }
+
                Page page = pagingStore.depage();
                if (page == null)
                {
@@ -325,7 +396,7 @@ public class PageCursorProviderImpl implements PageCursorProvider
          catch (Exception ex)
          {
             log.warn("Couldn't complete cleanup on paging", ex);
-            return;
+            return false;
          }
          finally
          {
@@ -333,6 +404,8 @@ public class PageCursorProviderImpl implements PageCursorProvider
          }
       }
 
+      // Deleting the files is done outside of the locks
+
       try
       {
          for (Page depagedPage : depagedPages)
@@ -342,14 +415,16 @@ public class PageCursorProviderImpl implements PageCursorProvider
             {
                softCache.remove((long)depagedPage.getPageId());
             }
+            reclaimedPages.incrementAndGet();
          }
       }
       catch (Exception ex)
       {
          log.warn("Couldn't complete cleanup on paging", ex);
-         return;
+         return false;
       }
 
+      return pendingPages;
    }
 
    /**
@@ -403,9 +478,9 @@ public class PageCursorProviderImpl implements PageCursorProvider
    // Private -------------------------------------------------------
 
    /**
-    * This method is synchronized because we want it to be atomic with the cursors being used
+    * The first page still in use by any of the subscriptions
     */
-   private long checkMinPage(List<PageSubscription> cursorList)
+   private long checkMinPage(Collection<PageSubscription> cursorList)
    {
       long minPage = Long.MAX_VALUE;
 
@@ -19,7 +19,6 @@ import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 
-import org.hornetq.api.core.Pair;
 import org.hornetq.core.logging.Logger;
 import org.hornetq.core.paging.cursor.PageSubscriptionCounter;
 import org.hornetq.core.persistence.StorageManager;
@@ -30,6 +29,11 @@ import org.hornetq.core.transaction.TransactionPropertyIndexes;
 
 /**
  * This class will encapsulate the persistent counters for the PagingSubscription
+ * <p>
+ * The value is persisted as a checkpoint record plus the increment records written since that checkpoint.
+ * Once there are more than FLUSH_COUNTER increments (and after every reload), a single journal transaction
+ * replaces the checkpoint and the increments by a new checkpoint, so the number of records replayed at startup
+ * is bounded for each subscription, no matter how many messages went through it.
  *
  * @author clebertsuconic
  *
@@ -58,7 +62,11 @@ public class PageSubscriptionCounterImpl implements PageSubscriptionCounter
 
    private final LinkedList<Long> incrementRecords = new LinkedList<Long>();
 
-   private LinkedList<Pair<Long, Integer>> loadList;
+   // increments read from the journal, applied on processReload as the checkpoint may be read after them
+   private long loadedIncrements;
+
+   // a checkpoint is already queued on the executor
+   private boolean cleanupScheduled;
 
    private final Executor executor;
 
@@ -66,7 +74,7 @@ public class PageSubscriptionCounterImpl implements PageSubscriptionCounter
    {
       public void run()
       {
-         cleanup();
+         cleanup(false);
       }
    };
 
@@ -162,40 +170,41 @@ public class PageSubscriptionCounterImpl implements PageSubscriptionCounter
    public synchronized void incrementProcessed(long id, int add)
    {
       addInc(id, add);
-      if (incrementRecords.size() > FLUSH_COUNTER)
+      if (incrementRecords.size() > FLUSH_COUNTER && !cleanupScheduled)
       {
+         cleanupScheduled = true;
          executor.execute(cleanupCheck);
       }
-
    }
 
    /* (non-Javadoc)
     * @see org.hornetq.core.paging.cursor.PageSubscriptionCounter#loadInc(long, int)
     */
-   public void loadInc(long id, int add)
+   public synchronized void loadInc(long id, int add)
    {
-      if (loadList == null)
-      {
-         loadList = new LinkedList<Pair<Long, Integer>>();
-      }
-
-      loadList.add(new Pair<Long, Integer>(id, add));
+      loadedIncrements += add;
+      incrementRecords.add(id);
    }
 
    /* (non-Javadoc)
     * @see org.hornetq.core.paging.cursor.PageSubscriptionCounter#processReload()
     */
-   public void processReload()
+   public synchronized void processReload()
    {
-      if (loadList != null)
+      value.addAndGet(loadedIncrements);
+      loadedIncrements = 0;
+
+      // fold whatever was replayed into a new checkpoint, so the next reload is a single record
+      if (!incrementRecords.isEmpty() && !cleanupScheduled)
       {
-         for (Pair<Long, Integer> incElement : loadList)
+         cleanupScheduled = true;
+         executor.execute(new Runnable()
          {
-            value.addAndGet(incElement.b);
-            incrementRecords.add(incElement.a);
-         }
-         loadList.clear();
-         loadList = null;
+            public void run()
+            {
+               cleanup(true);
+            }
+         });
       }
    }
 
@@ -218,15 +227,23 @@ public class PageSubscriptionCounterImpl implements PageSubscriptionCounter
       this.persistent = persistent;
    }
 
+   /** used on testing only */
+   public synchronized int getIncrementRecordsSize()
+   {
+      return incrementRecords.size();
+   }
+
    /** This method sould alwas be called from a single threaded executor */
-   protected void cleanup()
+   protected void cleanup(final boolean force)
    {
       ArrayList<Long> deleteList;
 
       long valueReplace;
       synchronized (this)
       {
-         if (incrementRecords.size() <= FLUSH_COUNTER)
+         cleanupScheduled = false;
+
+         if (incrementRecords.isEmpty() || !force && incrementRecords.size() <= FLUSH_COUNTER)
          {
             return;
          }
@@ -262,6 +279,12 @@ public class PageSubscriptionCounterImpl implements PageSubscriptionCounter
       {
          newRecordID = recordID;
 
+         // the old checkpoint and increments are still on the journal, keep them for the next checkpoint
+         synchronized (this)
+         {
+            incrementRecords.addAll(0, deleteList);
+         }
+
          log.warn(e.getMessage(), e);
          try
          {
@@ -313,6 +313,14 @@ public class PageSubscriptionImpl implements PageSubscription
       return new CursorIterator();
    }
 
+   /* (non-Javadoc)
+    * @see org.hornetq.core.paging.cursor.PageSubscription#browserIterator()
+    */
+   public LinkedListIterator<PagedReference> browserIterator()
+   {
+      return new BrowserIterator();
+   }
+
    private PagedReference internalGetNext(final PagePosition pos)
    {
       PagePosition retPos = pos.nextMessage();
@@ -1268,4 +1276,108 @@ public class PageSubscriptionImpl implements PageSubscription
       }
    }
 
+   /**
+    * A read only iterator: as opposed to CursorIterator it won't ack filtered messages, won't consume redeliveries
+    * and won't register late deliveries on pending transactions.
+    * Only the current page is held (through the soft cache on the cursor provider), so browsing a large
+    * backlog doesn't need to bring it into memory.
+    */
+   class BrowserIterator implements LinkedListIterator<PagedReference>
+   {
+      private PagePosition position = null;
+
+      private PagedReference cachedNext;
+
+      public void repeat()
+      {
+      }
+
+      public synchronized boolean hasNext()
+      {
+         if (cachedNext != null)
+         {
+            return true;
+         }
+
+         if (!pageStore.isPaging())
+         {
+            return false;
+         }
+
+         cachedNext = moveNext();
+
+         return cachedNext != null;
+      }
+
+      public synchronized PagedReference next()
+      {
+         if (cachedNext != null)
+         {
+            PagedReference retPos = cachedNext;
+            cachedNext = null;
+            return retPos;
+         }
+
+         return moveNext();
+      }
+
+      private PagedReference moveNext()
+      {
+         if (position == null)
+         {
+            position = getStartPosition();
+         }
+
+         PagedReference message;
+
+         while ((message = internalGetNext(position)) != null)
+         {
+            position = message.getPosition();
+
+            if (isPending(message))
+            {
+               return message;
+            }
+         }
+
+         return null;
+      }
+
+      private boolean isPending(final PagedReference message)
+      {
+         PagedMessage pagedMessage = message.getPagedMessage();
+
+         if (!routed(pagedMessage))
+         {
+            return false;
+         }
+
+         if (pagedMessage.getTransactionID() >= 0)
+         {
+            PageTransactionInfo tx = pageStore.getPagingManager().getTransaction(pagedMessage.getTransactionID());
+            if (tx == null || !tx.isCommit())
+            {
+               return false;
+            }
+         }
+
+         PageCursorInfo info = getPageInfo(message.getPosition(), false);
+         if (info != null && info.isRemoved(message.getPosition()))
+         {
+            return false;
+         }
+
+         return match(message.getMessage());
+      }
+
+      public void remove()
+      {
+         throw new UnsupportedOperationException("Browser iterators are read only");
+      }
+
+      public void close()
+      {
+      }
+   }
+
 }
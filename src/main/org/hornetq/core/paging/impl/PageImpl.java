@@ -178,17 +178,22 @@ public class PageImpl implements Page, Comparable<Page>
 
       buffer.rewind();
 
-      file.writeDirect(buffer, false);
-      
-      if (pageCache != null)
+      // The encoding above is done at the caller's thread, and only the append is serialized.
+      // The order on the file has to match the order on the live cache as the message position is its index on the page
+      synchronized (file)
       {
-         pageCache.addLiveMessage(message);
-      }
+         file.writeDirect(buffer, false);
 
-      numberOfMessages.incrementAndGet();
-      size.addAndGet(buffer.limit());
+         if (pageCache != null)
+         {
+            pageCache.addLiveMessage(message);
+         }
+
+         numberOfMessages.incrementAndGet();
+         size.addAndGet(buffer.limit());
 
-      storageManager.pageWrite(message, pageId);
+         storageManager.pageWrite(message, pageId);
+      }
    }
 
    public void sync() throws Exception
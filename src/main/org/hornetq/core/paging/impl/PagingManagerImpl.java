@@ -18,6 +18,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.logging.Logger;
@@ -29,6 +30,7 @@ import org.hornetq.core.persistence.StorageManager;
 import org.hornetq.core.postoffice.PostOffice;
 import org.hornetq.core.settings.HierarchicalRepository;
 import org.hornetq.core.settings.impl.AddressSettings;
+import org.hornetq.utils.ConcurrentHashSet;
 
 /**
  * 
@@ -55,6 +57,18 @@ public class PagingManagerImpl implements PagingManager
 
    private final ConcurrentMap</*TransactionID*/Long, PageTransactionInfo> transactions = new ConcurrentHashMap<Long, PageTransactionInfo>();
 
+   private final long maxMemory;
+
+   private final long maxDiskSize;
+
+   // Only accounted if there's a global limit, every message routed or acknowledged would contend on it otherwise
+   private final AtomicLong globalSize = new AtomicLong(0);
+
+   private final AtomicLong globalDiskSize = new AtomicLong(0);
+
+   // Stores with producers waiting for global memory or disk to be released
+   private final ConcurrentHashSet<PagingStore> blockedStores = new ConcurrentHashSet<PagingStore>();
+
    // Static
    // --------------------------------------------------------------------------------------------------------------------------
 
@@ -66,11 +80,22 @@ public class PagingManagerImpl implements PagingManager
    public PagingManagerImpl(final PagingStoreFactory pagingSPI,
                             final StorageManager storageManager,
                             final HierarchicalRepository<AddressSettings> addressSettingsRepository)
+   {
+      this(pagingSPI, storageManager, addressSettingsRepository, -1, -1);
+   }
+
+   public PagingManagerImpl(final PagingStoreFactory pagingSPI,
+                            final StorageManager storageManager,
+                            final HierarchicalRepository<AddressSettings> addressSettingsRepository,
+                            final long maxMemory,
+                            final long maxDiskSize)
    {
       pagingStoreFactory = pagingSPI;
       this.addressSettingsRepository = addressSettingsRepository;
       addressSettingsRepository.registerListener(this);
       this.storageManager = storageManager;
+      this.maxMemory = maxMemory;
+      this.maxDiskSize = maxDiskSize;
    }
 
    // Public
@@ -188,6 +213,95 @@ public class PagingManagerImpl implements PagingManager
       return transactions;
    }
 
+   public long addSize(final long size)
+   {
+      if (maxMemory <= 0)
+      {
+         return -1;
+      }
+
+      long newSize = globalSize.addAndGet(size);
+
+      if (size < 0 && maxMemory > 0 && newSize <= maxMemory)
+      {
+         releaseBlockedStores();
+      }
+
+      return newSize;
+   }
+
+   public long getTotalMemory()
+   {
+      if (maxMemory <= 0)
+      {
+         return -1;
+      }
+
+      return globalSize.get();
+   }
+
+   public long getMaxMemory()
+   {
+      return maxMemory;
+   }
+
+   public boolean isGlobalFull()
+   {
+      return maxMemory > 0 && globalSize.get() > maxMemory;
+   }
+
+   public long getAddressMemoryShare()
+   {
+      if (maxMemory <= 0)
+      {
+         return -1;
+      }
+
+      return maxMemory / Math.max(1, stores.size());
+   }
+
+   public long addDiskSize(final long size)
+   {
+      if (maxDiskSize <= 0)
+      {
+         return -1;
+      }
+
+      long newSize = globalDiskSize.addAndGet(size);
+
+      if (size < 0 && maxDiskSize > 0 && newSize <= maxDiskSize)
+      {
+         releaseBlockedStores();
+      }
+
+      return newSize;
+   }
+
+   public long getTotalDiskSize()
+   {
+      if (maxDiskSize <= 0)
+      {
+         return -1;
+      }
+
+      return globalDiskSize.get();
+   }
+
+   public long getMaxDiskSize()
+   {
+      return maxDiskSize;
+   }
+
+   public boolean isDiskFull()
+   {
+      return maxDiskSize > 0 && globalDiskSize.get() > maxDiskSize;
+   }
+
+   public void addBlockedStore(final PagingStore store)
+   {
+      blockedStores.add(store);
+   }
+
 
    // HornetQComponent implementation
    // ------------------------------------------------------------------------------------------------
@@ -256,6 +370,23 @@ public class PagingManagerImpl implements PagingManager
       return pagingStoreFactory;
    }
 
+   private void releaseBlockedStores()
+   {
+      if (blockedStores.isEmpty())
+      {
+         return;
+      }
+
+      PagingStore[] storesToCheck = blockedStores.toArray(new PagingStore[blockedStores.size()]);
+
+      for (PagingStore store : storesToCheck)
+      {
+         // The store will register itself again if it's still blocked
+         blockedStores.remove(store);
+         store.checkMemory();
+      }
+   }
+
    // Inner classes -------------------------------------------------
 
 }
@@ -111,6 +111,9 @@ public class PagingStoreImpl implements TestSupportPageStore
    // Bytes consumed by the queue on the memory
    private final AtomicLong sizeInBytes = new AtomicLong();
 
+   // Bytes used by the page files of this store, also accounted on the PagingManager's disk quota
+   private final AtomicLong diskSize = new AtomicLong();
+
    private volatile int numberOfPages;
 
    private volatile int firstPageId;
@@ -386,6 +389,9 @@ public class PagingStoreImpl implements TestSupportPageStore
 
          running = false;
 
+         // The files are still there, but they will be accounted again when the store is restarted
+         addDiskSize(-diskSize.get());
+
          flushExecutors();
 
          if (currentPage != null)
@@ -455,6 +461,8 @@ public class PagingStoreImpl implements TestSupportPageStore
                   {
                      firstPageId = fileId;
                   }
+
+                  addDiskSize(fileFactory.createSequentialFile(fileName, 1).size());
                }
 
                if (currentPageId != 0)
@@ -641,6 +649,8 @@ public class PagingStoreImpl implements TestSupportPageStore
                returnPage.close();
                currentPage = null;
 
+               addDiskSize(-returnPage.getSize());
+
                // The current page is empty... which means we reached the end of the pages
                if (returnPage.getNumberOfMessages() == 0)
                {
@@ -662,7 +672,9 @@ public class PagingStoreImpl implements TestSupportPageStore
             }
             else
             {
-               returnPage = createPage(firstPageId++);
+               returnPage = createPage(firstPageId);
+
+               addDiskSize(-fileFactory.createSequentialFile(createFileName(firstPageId++), 1).size());
             }
 
             return returnPage;
@@ -727,46 +739,57 @@ public class PagingStoreImpl implements TestSupportPageStore
 
    public void executeRunnableWhenMemoryAvailable(final Runnable runnable)
    {
-      if (addressFullMessagePolicy == AddressFullMessagePolicy.BLOCK && maxSize != -1)
+      if (isBlocked())
       {
-         if (sizeInBytes.get() > maxSize)
-         {
-            OurRunnable ourRunnable = new OurRunnable(runnable);
+         OurRunnable ourRunnable = new OurRunnable(runnable);
 
-            onMemoryFreedRunnables.add(ourRunnable);
+         onMemoryFreedRunnables.add(ourRunnable);
 
-            // We check again to avoid a race condition where the size can come down just after the element
-            // has been added, but the check to execute was done before the element was added
-            // NOTE! We do not fix this race by locking the whole thing, doing this check provides
-            // MUCH better performance in a highly concurrent environment
-            if (sizeInBytes.get() <= maxSize)
-            {
-               // run it now
-               ourRunnable.run();
-            }
+         // The memory or disk may be released by other addresses
+         pagingManager.addBlockedStore(this);
 
-            return;
+         // We check again to avoid a race condition where the size can come down just after the element
+         // has been added, but the check to execute was done before the element was added
+         // NOTE! We do not fix this race by locking the whole thing, doing this check provides
+         // MUCH better performance in a highly concurrent environment
+         if (!isBlocked())
+         {
+            // run it now
+            ourRunnable.run();
          }
+
+         return;
       }
 
       runnable.run();
    }
 
+   public void checkMemory()
+   {
+      if (!onMemoryFreedRunnables.isEmpty())
+      {
+         if (isBlocked())
+         {
+            pagingManager.addBlockedStore(this);
+         }
+         else
+         {
+            executor.execute(memoryFreedRunnablesExecutor);
+         }
+      }
+   }
+
    public void addSize(final int size)
    {
+      pagingManager.addSize(size);
+
       if (addressFullMessagePolicy == AddressFullMessagePolicy.BLOCK)
       {
-         if (maxSize != -1)
-         {
-            long newSize = sizeInBytes.addAndGet(size);
+         long newSize = sizeInBytes.addAndGet(size);
 
-            if (newSize <= maxSize)
-            {
-               if (!onMemoryFreedRunnables.isEmpty())
-               {
-                  executor.execute(memoryFreedRunnablesExecutor);
-               }
-            }
+         if (!onMemoryFreedRunnables.isEmpty() && !isOverBudget(newSize))
+         {
+            executor.execute(memoryFreedRunnablesExecutor);
          }
 
          return;
@@ -777,7 +800,7 @@ public class PagingStoreImpl implements TestSupportPageStore
 
          if (size > 0)
          {
-            if (maxSize > 0 && addressSize > maxSize)
+            if (isOverBudget(addressSize))
             {
                if (startPaging())
                {
@@ -835,71 +858,97 @@ public class PagingStoreImpl implements TestSupportPageStore
          return false;
       }
 
-      // We need to ensure a read lock, as depage could change the paging state
-      lock.readLock().lock();
-
-      try
+      // First check done without locks to avoid synchronization and increase throughput.
+      // It is checked again under the lock, as depage could change the paging state
+      if (!paging)
       {
-         // First check done concurrently, to avoid synchronization and increase throughput
-         if (!paging)
-         {
-            return false;
-         }
+         return false;
       }
-      finally
+
+      Transaction tx = ctx.getTransaction();
+
+      if (!message.isDurable())
       {
-         lock.readLock().unlock();
+         // The address should never be transient when paging (even for non-persistent messages when paging)
+         // This will force everything to be persisted
+         message.bodyChanged();
       }
 
-      Transaction tx = ctx.getTransaction();
+      PagedMessage pagedMessage = new PagedMessageImpl(message, getQueueIDs(listCtx), tx == null ? -1 : tx.getID());
 
-      lock.writeLock().lock();
+      int bytesToWrite = pagedMessage.getEncodeSize() + PageImpl.SIZE_RECORD;
 
-      try
+      while (true)
       {
-         if (!paging)
-         {
-            return false;
-         }
+         Page pageToReplace = null;
 
-         if (!message.isDurable())
+         // Producers share the read lock while writing to the current page, and the write on the page itself is
+         // serialized on the file. The write lock is only needed by depage or to replace the current page
+         lock.readLock().lock();
+
+         try
          {
-            // The address should never be transient when paging (even for non-persistent messages when paging)
-            // This will force everything to be persisted
-            message.bodyChanged();
-         }
+            if (!paging)
+            {
+               return false;
+            }
+
+            Page page = currentPage;
+
+            if (currentPageSize.addAndGet(bytesToWrite) > pageSize && page.getNumberOfMessages() > 0)
+            {
+               pageToReplace = page;
+            }
+            else
+            {
+               incrementCounters(tx, listCtx);
+
+               installPageTransaction(tx, listCtx, page.getPageId());
 
+               page.write(pagedMessage);
 
-         PagedMessage pagedMessage = new PagedMessageImpl(message, routeQueues(tx, listCtx), tx == null ? -1 : tx.getID());
+               addDiskSize(bytesToWrite);
 
-         int bytesToWrite = pagedMessage.getEncodeSize() + PageImpl.SIZE_RECORD;
+               if (sync || tx != null)
+               {
+                  sync();
+               }
 
-         if (currentPageSize.addAndGet(bytesToWrite) > pageSize && currentPage.getNumberOfMessages() > 0)
+               return true;
+            }
+         }
+         finally
          {
-            // Make sure nothing is currently validating or using currentPage
-            openNewPage();
-            currentPageSize.addAndGet(bytesToWrite);
+            lock.readLock().unlock();
          }
-         
-         installPageTransaction(tx, listCtx, currentPage.getPageId());
- 
-         currentPage.write(pagedMessage);
 
-         if (sync || tx != null)
+         replacePage(pageToReplace);
+      }
+
+   }
+
+   /**
+    * Opens a new page if the page is still the current page.
+    * Many producers may find the page full at the same time, but only the first one will replace it
+    */
+   private void replacePage(final Page page) throws Exception
+   {
+      lock.writeLock().lock();
+
+      try
+      {
+         if (paging && currentPage == page)
          {
-            sync();
+            openNewPage();
          }
-
-         return true;
       }
       finally
       {
          lock.writeLock().unlock();
       }
-
    }
 
-   private long[] routeQueues(Transaction tx, RouteContextList ctx) throws Exception
+   private long[] getQueueIDs(RouteContextList ctx)
    {
       List<org.hornetq.core.server.Queue> durableQueues = ctx.getDurableQueues();
       List<org.hornetq.core.server.Queue> nonDurableQueues = ctx.getNonDurableQueues();
@@ -908,18 +957,29 @@ public class PagingStoreImpl implements TestSupportPageStore
 
       for (org.hornetq.core.server.Queue q : durableQueues)
       {
-         q.getPageSubscription().getCounter().increment(tx, 1);
          ids[i++] = q.getID();
       }
 
       for (org.hornetq.core.server.Queue q : nonDurableQueues)
       {
-         q.getPageSubscription().getCounter().increment(tx, 1);
          ids[i++] = q.getID();
       }
       return ids;
    }
 
+   private void incrementCounters(Transaction tx, RouteContextList ctx) throws Exception
+   {
+      for (org.hornetq.core.server.Queue q : ctx.getDurableQueues())
+      {
+         q.getPageSubscription().getCounter().increment(tx, 1);
+      }
+
+      for (org.hornetq.core.server.Queue q : ctx.getNonDurableQueues())
+      {
+         q.getPageSubscription().getCounter().increment(tx, 1);
+      }
+   }
+
    private PageTransactionInfo installPageTransaction(final Transaction tx, final RouteContextList listCtx, int pageID) throws Exception
    {
       if (tx == null)
@@ -1072,7 +1132,48 @@ public class PagingStoreImpl implements TestSupportPageStore
    // To be used on isDropMessagesWhenFull
    private boolean isFull()
    {
-      return maxSize > 0 && getAddressSize() > maxSize;
+      return isOverBudget(getAddressSize());
+   }
+
+   /**
+    * An address is over its budget when it's above its own max-size-bytes, or when the global memory is exhausted
+    * and the address is using more than its share of it.
+    * While there's global memory available an address may borrow memory above its share.
+    */
+   private boolean isOverBudget(final long addressSize)
+   {
+      if (maxSize > 0 && addressSize > maxSize)
+      {
+         return true;
+      }
+
+      return pagingManager.isGlobalFull() && addressSize > pagingManager.getAddressMemoryShare();
+   }
+
+   /**
+    * Producers are blocked when a BLOCK address is over its budget,
+    * or when a PAGE address has no disk space left to page.
+    */
+   private boolean isBlocked()
+   {
+      if (addressFullMessagePolicy == AddressFullMessagePolicy.BLOCK)
+      {
+         return isOverBudget(sizeInBytes.get());
+      }
+      else if (addressFullMessagePolicy == AddressFullMessagePolicy.PAGE)
+      {
+         return pagingManager.isDiskFull();
+      }
+      else
+      {
+         return false;
+      }
+   }
+
+   private void addDiskSize(final long size)
+   {
+      diskSize.addAndGet(size);
+      pagingManager.addDiskSize(size);
    }
 
    // Inner classes -------------------------------------------------
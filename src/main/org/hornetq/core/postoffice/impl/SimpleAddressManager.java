@@ -23,6 +23,7 @@ import org.hornetq.core.postoffice.AddressManager;
 import org.hornetq.core.postoffice.Binding;
 import org.hornetq.core.postoffice.Bindings;
 import org.hornetq.core.postoffice.BindingsFactory;
+import org.hornetq.utils.SimpleStringPool;
 
 /**
  * A simple address manager that maintains the addresses and bindings.
@@ -48,7 +49,9 @@ public class SimpleAddressManager implements AddressManager
 
    public boolean addBinding(final Binding binding) throws Exception
    {
-      if (nameMap.putIfAbsent(binding.getUniqueName(), binding) != null)
+      // the names are keyed by their pooled instances, which the decoded names are, so the lookups of the names
+      // decoded from the packets match by identity
+      if (nameMap.putIfAbsent(SimpleStringPool.getInstance().intern(binding.getUniqueName()), binding) != null)
       {
          throw new IllegalStateException("Binding already exists " + binding);
       }
@@ -159,7 +162,7 @@ public class SimpleAddressManager implements AddressManager
       {
          bindings = bindingsFactory.createBindings(address);
 
-         prevBindings = mappings.putIfAbsent(address, bindings);
+         prevBindings = mappings.putIfAbsent(SimpleStringPool.getInstance().intern(address), bindings);
 
          if (prevBindings != null)
          {
@@ -154,6 +154,14 @@ public interface Channel
     */
    void flushConfirmations();
 
+   /**
+    * blocks until less than the given number of bytes sent on this channel are waiting for a confirmation.
+    *
+    * @param maxUnconfirmedBytes the maximum number of bytes waiting for a confirmation
+    * @throws HornetQException if the confirmations don't arrive within the blocking call timeout
+    */
+   void waitForConfirmations(int maxUnconfirmedBytes) throws HornetQException;
+
    /**
     * Called by {@link org.hornetq.core.protocol.core.CoreRemotingConnection} when a packet is received.
     * <p/>
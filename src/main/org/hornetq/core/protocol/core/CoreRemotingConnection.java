@@ -91,4 +91,17 @@ public interface CoreRemotingConnection extends RemotingConnection
     * Called periodically to flush any data in the batch buffer
     */
    void checkFlushBatchBuffer();
+
+   /**
+    * Sets the callback run when a channel of this connection confirms packets without sending the confirmation
+    * straight away, so whoever flushes the connection knows it has confirmations to flush.
+    *
+    * @param callback the callback, or <code>null</code>
+    */
+   void setConfirmationsPendingCallback(Runnable callback);
+
+   /**
+    * Called by the channels of this connection when they have confirmations to flush.
+    */
+   void confirmationsPending();
 }
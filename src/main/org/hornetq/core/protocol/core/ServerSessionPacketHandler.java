@@ -16,6 +16,7 @@ package org.hornetq.core.protocol.core;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.CREATE_QUEUE;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.DELETE_QUEUE;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_ACKNOWLEDGE;
+import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_BATCH_ACKNOWLEDGE;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_BINDINGQUERY;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_CLOSE;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_COMMIT;
@@ -28,6 +29,7 @@ import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_INDIVIDUAL_ACK
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_QUEUEQUERY;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_ROLLBACK;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND;
+import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND_BATCH;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND_CONTINUATION;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND_LARGE;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_START;
@@ -63,6 +65,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.NullResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.RollbackMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionAcknowledgeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionAddMetaDataMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionBatchAcknowledgeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionBindingQueryMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionBindingQueryResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionConsumerCloseMessage;
@@ -75,6 +78,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.SessionIndividualAcknowled
 import org.hornetq.core.protocol.core.impl.wireformat.SessionQueueQueryMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionQueueQueryResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionRequestProducerCreditsMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionSendBatchMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendContinuationMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendLargeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendMessage;
@@ -418,6 +422,17 @@ public class ServerSessionPacketHandler implements ChannelHandler
                   }
                   break;
                }
+               case SESS_BATCH_ACKNOWLEDGE:
+               {
+                  SessionBatchAcknowledgeMessage message = (SessionBatchAcknowledgeMessage)packet;
+                  requiresResponse = message.isRequiresResponse();
+                  session.individualAcknowledge(message.getConsumerID(), message.getMessageIDs());
+                  if (requiresResponse)
+                  {
+                     response = new NullResponseMessage();
+                  }
+                  break;
+               }
                case SESS_CONSUMER_CLOSE:
                {
                   requiresResponse = true;
@@ -443,6 +458,17 @@ public class ServerSessionPacketHandler implements ChannelHandler
                   }
                   break;
                }
+               case SESS_SEND_BATCH:
+               {
+                  SessionSendBatchMessage message = (SessionSendBatchMessage)packet;
+                  requiresResponse = message.isRequiresResponse();
+                  session.send(message.getServerMessages(), direct);
+                  if (requiresResponse)
+                  {
+                     response = new NullResponseMessage();
+                  }
+                  break;
+               }
                case SESS_SEND_LARGE:
                {
                   SessionSendLargeMessage message = (SessionSendLargeMessage)packet;
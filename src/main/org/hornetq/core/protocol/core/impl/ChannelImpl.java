@@ -73,6 +73,11 @@ public class ChannelImpl implements Channel
 
    private CommandConfirmationHandler commandConfirmationHandler;
 
+   // size of the packets in the resend cache
+   private int unconfirmedBytes;
+
+   private final Object confirmationLock = new Object();
+
    private volatile boolean transferring;
 
    public ChannelImpl(final CoreRemotingConnection connection, final long id, final int confWindowSize)
@@ -186,7 +191,7 @@ public class ChannelImpl implements Channel
 
             if (resendCache != null && packet.isRequiresConfirmations())
             {
-               resendCache.add(packet);
+               addResendPacket(packet);
             }
          }
          finally
@@ -240,7 +245,7 @@ public class ChannelImpl implements Channel
 
             if (resendCache != null && packet.isRequiresConfirmations())
             {
-               resendCache.add(packet);
+               addResendPacket(packet);
             }
 
             connection.getTransportConnection().write(buffer, false, false);
@@ -306,6 +311,44 @@ public class ChannelImpl implements Channel
       commandConfirmationHandler = handler;
    }
 
+   public void waitForConfirmations(final int maxUnconfirmedBytes) throws HornetQException
+   {
+      if (resendCache == null)
+      {
+         return;
+      }
+
+      synchronized (confirmationLock)
+      {
+         long toWait = connection.getBlockingCallTimeout();
+
+         long start = System.currentTimeMillis();
+
+         while (!closed && unconfirmedBytes >= maxUnconfirmedBytes)
+         {
+            if (toWait <= 0)
+            {
+               throw new HornetQException(HornetQException.CONNECTION_TIMEDOUT,
+                                          "Timed out waiting for confirmations of " + unconfirmedBytes + " bytes");
+            }
+
+            try
+            {
+               confirmationLock.wait(toWait);
+            }
+            catch (InterruptedException e)
+            {
+            }
+
+            final long now = System.currentTimeMillis();
+
+            toWait -= now - start;
+
+            start = now;
+         }
+      }
+   }
+
    public void setHandler(final ChannelHandler handler)
    {
       this.handler = handler;
@@ -324,6 +367,11 @@ public class ChannelImpl implements Channel
       }
 
       closed = true;
+
+      synchronized (confirmationLock)
+      {
+         confirmationLock.notifyAll();
+      }
    }
 
    public void transferConnection(final CoreRemotingConnection newConnection)
@@ -417,6 +465,10 @@ public class ChannelImpl implements Channel
 
             doWrite(confirmed);
          }
+         else
+         {
+            connection.confirmationsPending();
+         }
       }
    }
 
@@ -429,6 +481,13 @@ public class ChannelImpl implements Channel
          firstStoredCommandID = 0;
 
          resendCache.clear();
+
+         synchronized (confirmationLock)
+         {
+            unconfirmedBytes = 0;
+
+            confirmationLock.notifyAll();
+         }
       }
    }
 
@@ -476,6 +535,19 @@ public class ChannelImpl implements Channel
       }
    }
 
+   private void addResendPacket(final Packet packet)
+   {
+      resendCache.add(packet);
+
+      if (packet.getType() != PacketImpl.PACKETS_CONFIRMED)
+      {
+         synchronized (confirmationLock)
+         {
+            unconfirmedBytes += packet.getPacketSize();
+         }
+      }
+   }
+
    private void doWrite(final Packet packet)
    {
       final HornetQBuffer buffer = packet.encode(connection);
@@ -505,6 +577,7 @@ public class ChannelImpl implements Channel
                                  " first stored command id " +
                                  firstStoredCommandID);
             firstStoredCommandID = lastReceivedCommandID + 1;
+            freeUnconfirmedBytes(sizeToFree);
             return;
          }
 
@@ -520,5 +593,17 @@ public class ChannelImpl implements Channel
       }
 
       firstStoredCommandID += numberToClear;
+
+      freeUnconfirmedBytes(sizeToFree);
+   }
+
+   private void freeUnconfirmedBytes(final int size)
+   {
+      synchronized (confirmationLock)
+      {
+         unconfirmedBytes -= size;
+
+         confirmationLock.notifyAll();
+      }
    }
 }
@@ -36,6 +36,12 @@ public class PacketImpl implements Packet
 
    private static final int INITIAL_PACKET_SIZE = 1500;
 
+   // The incrementing version of the first servers which understand SESS_BATCH_ACKNOWLEDGE
+   public static final int SESS_BATCH_ACKNOWLEDGE_VERSION = 123;
+
+   // The incrementing version of the first servers which understand SESS_SEND_BATCH
+   public static final int SESS_SEND_BATCH_VERSION = 123;
+
    protected long channelID;
 
    protected final byte type;
@@ -152,6 +158,10 @@ public class PacketImpl implements Packet
    
    public static final byte SESS_INDIVIDUAL_ACKNOWLEDGE = 81;
 
+   public static final byte SESS_BATCH_ACKNOWLEDGE = 82;
+
+   public static final byte SESS_SEND_BATCH = 83;
+
    // Replication
 
    public static final byte REPLICATION_RESPONSE = 90;
@@ -97,6 +97,8 @@ public class RemotingConnectionImpl implements BufferHandler, CoreRemotingConnec
    
    private String clientID;
 
+   private volatile Runnable confirmationsPendingCallback;
+
    // Constructors
    // ---------------------------------------------------------------------------------
 
@@ -414,6 +416,21 @@ public class RemotingConnectionImpl implements BufferHandler, CoreRemotingConnec
       transportConnection.checkFlushBatchBuffer();
    }
 
+   public void setConfirmationsPendingCallback(final Runnable callback)
+   {
+      confirmationsPendingCallback = callback;
+   }
+
+   public void confirmationsPending()
+   {
+      Runnable callback = confirmationsPendingCallback;
+
+      if (callback != null)
+      {
+         callback.run();
+      }
+   }
+
    // Buffer Handler implementation
    // ----------------------------------------------------
 
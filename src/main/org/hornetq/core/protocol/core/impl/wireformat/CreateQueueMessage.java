@@ -17,6 +17,7 @@ import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.logging.Logger;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.utils.SimpleStringPool;
 
 /**
  * @author <a href="mailto:tim.fox@jboss.com">Tim Fox</a>
@@ -128,8 +129,8 @@ public class CreateQueueMessage extends PacketImpl
    @Override
    public void decodeRest(final HornetQBuffer buffer)
    {
-      address = buffer.readSimpleString();
-      queueName = buffer.readSimpleString();
+      address = SimpleStringPool.getInstance().readSimpleString(buffer);
+      queueName = SimpleStringPool.getInstance().readSimpleString(buffer);
       filterString = buffer.readNullableSimpleString();
       durable = buffer.readBoolean();
       temporary = buffer.readBoolean();
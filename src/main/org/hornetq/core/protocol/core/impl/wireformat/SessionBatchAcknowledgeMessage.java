@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.protocol.core.impl.wireformat;
+
+import java.util.Arrays;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+
+/**
+ * Acknowledges individually a batch of messages delivered to a consumer, as many
+ * {@link SessionIndividualAcknowledgeMessage} would.
+ *
+ */
+public class SessionBatchAcknowledgeMessage extends PacketImpl
+{
+   // Constants -----------------------------------------------------
+
+   // Attributes ----------------------------------------------------
+
+   private long consumerID;
+
+   private long[] messageIDs;
+
+   private boolean requiresResponse;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   public SessionBatchAcknowledgeMessage(final long consumerID,
+                                         final long[] messageIDs,
+                                         final boolean requiresResponse)
+   {
+      super(PacketImpl.SESS_BATCH_ACKNOWLEDGE);
+
+      this.consumerID = consumerID;
+
+      this.messageIDs = messageIDs;
+
+      this.requiresResponse = requiresResponse;
+   }
+
+   public SessionBatchAcknowledgeMessage()
+   {
+      super(PacketImpl.SESS_BATCH_ACKNOWLEDGE);
+   }
+
+   // Public --------------------------------------------------------
+
+   public long getConsumerID()
+   {
+      return consumerID;
+   }
+
+   public long[] getMessageIDs()
+   {
+      return messageIDs;
+   }
+
+   public boolean isRequiresResponse()
+   {
+      return requiresResponse;
+   }
+
+   @Override
+   public void encodeRest(final HornetQBuffer buffer)
+   {
+      buffer.writeLong(consumerID);
+
+      buffer.writeInt(messageIDs.length);
+
+      for (long messageID : messageIDs)
+      {
+         buffer.writeLong(messageID);
+      }
+
+      buffer.writeBoolean(requiresResponse);
+   }
+
+   @Override
+   public void decodeRest(final HornetQBuffer buffer)
+   {
+      consumerID = buffer.readLong();
+
+      messageIDs = new long[buffer.readInt()];
+
+      for (int i = 0; i < messageIDs.length; i++)
+      {
+         messageIDs[i] = buffer.readLong();
+      }
+
+      requiresResponse = buffer.readBoolean();
+   }
+
+   @Override
+   public boolean equals(final Object other)
+   {
+      if (other instanceof SessionBatchAcknowledgeMessage == false)
+      {
+         return false;
+      }
+
+      SessionBatchAcknowledgeMessage r = (SessionBatchAcknowledgeMessage)other;
+
+      return super.equals(other) && consumerID == r.consumerID &&
+             Arrays.equals(messageIDs, r.messageIDs) &&
+             requiresResponse == r.requiresResponse;
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   // Private -------------------------------------------------------
+
+   // Inner classes -------------------------------------------------
+}
@@ -16,6 +16,7 @@ package org.hornetq.core.protocol.core.impl.wireformat;
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.utils.SimpleStringPool;
 
 /**
  * 
@@ -54,7 +55,7 @@ public class SessionBindingQueryMessage extends PacketImpl
    @Override
    public void decodeRest(final HornetQBuffer buffer)
    {
-      address = buffer.readSimpleString();
+      address = SimpleStringPool.getInstance().readSimpleString(buffer);
    }
 
    @Override
@@ -16,6 +16,7 @@ package org.hornetq.core.protocol.core.impl.wireformat;
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.utils.SimpleStringPool;
 
 /**
  * @author <a href="mailto:tim.fox@jboss.com">Tim Fox</a>
@@ -71,7 +72,7 @@ public class SessionDeleteQueueMessage extends PacketImpl
    @Override
    public void decodeRest(final HornetQBuffer buffer)
    {
-      queueName = buffer.readSimpleString();
+      queueName = SimpleStringPool.getInstance().readSimpleString(buffer);
    }
 
    @Override
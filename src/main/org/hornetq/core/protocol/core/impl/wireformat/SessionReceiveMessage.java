@@ -14,7 +14,7 @@
 package org.hornetq.core.protocol.core.impl.wireformat;
 
 import org.hornetq.api.core.HornetQBuffer;
-import org.hornetq.core.client.impl.ClientMessageImpl;
+import org.hornetq.core.client.impl.ClientMessagePool;
 import org.hornetq.core.logging.Logger;
 import org.hornetq.core.message.impl.MessageInternal;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
@@ -48,7 +48,7 @@ public class SessionReceiveMessage extends MessagePacket
 
    public SessionReceiveMessage()
    {
-      super(PacketImpl.SESS_RECEIVE_MSG, new ClientMessageImpl());
+      super(PacketImpl.SESS_RECEIVE_MSG, ClientMessagePool.getInstance().take());
    }
 
    // Public --------------------------------------------------------
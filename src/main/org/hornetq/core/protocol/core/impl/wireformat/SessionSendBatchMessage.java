@@ -0,0 +1,119 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.protocol.core.impl.wireformat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.core.message.impl.MessageInternal;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+
+/**
+ * Sends a batch of messages in a single packet, as many {@link SessionSendMessage} would.
+ *
+ * The messages are written one after the other, in their journal encoding.
+ *
+ */
+public class SessionSendBatchMessage extends PacketImpl
+{
+   // Constants -----------------------------------------------------
+
+   // Attributes ----------------------------------------------------
+
+   private List<? extends MessageInternal> messages;
+
+   private boolean requiresResponse;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   public SessionSendBatchMessage(final List<? extends MessageInternal> messages, final boolean requiresResponse)
+   {
+      super(PacketImpl.SESS_SEND_BATCH);
+
+      this.messages = messages;
+
+      this.requiresResponse = requiresResponse;
+   }
+
+   public SessionSendBatchMessage()
+   {
+      super(PacketImpl.SESS_SEND_BATCH);
+   }
+
+   // Public --------------------------------------------------------
+
+   public List<? extends MessageInternal> getMessages()
+   {
+      return messages;
+   }
+
+   /**
+    * @return the messages decoded on the server
+    */
+   @SuppressWarnings("unchecked")
+   public List<ServerMessage> getServerMessages()
+   {
+      return (List<ServerMessage>)messages;
+   }
+
+   public boolean isRequiresResponse()
+   {
+      return requiresResponse;
+   }
+
+   @Override
+   public void encodeRest(final HornetQBuffer buffer)
+   {
+      buffer.writeBoolean(requiresResponse);
+      buffer.writeInt(messages.size());
+      for (MessageInternal message : messages)
+      {
+         message.encode(buffer);
+      }
+   }
+
+   @Override
+   public void decodeRest(final HornetQBuffer buffer)
+   {
+      requiresResponse = buffer.readBoolean();
+      int count = buffer.readInt();
+      List<ServerMessage> serverMessages = new ArrayList<ServerMessage>(count);
+      for (int i = 0; i < count; i++)
+      {
+         ServerMessage message = new ServerMessageImpl(-1, 50);
+         message.decode(buffer);
+         serverMessages.add(message);
+      }
+      messages = serverMessages;
+   }
+
+   @Override
+   public String toString()
+   {
+      return getParentString() + ", messages=" + messages.size() + ", requiresResponse=" + requiresResponse + "]";
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   // Private -------------------------------------------------------
+
+   // Inner classes -------------------------------------------------
+}
@@ -189,7 +189,8 @@ public class InVMAcceptor implements Acceptor
          throw new IllegalStateException("Acceptor is not started");
       }
 
-      new InVMConnection(id, connectionID, remoteHandler, new Listener(connector), clientExecutor);
+      // the buffers the server writes to the client are copied at their exact size
+      new InVMConnection(id, connectionID, remoteHandler, new Listener(connector), clientExecutor, false);
    }
 
    public void disconnect(final String connectionID)
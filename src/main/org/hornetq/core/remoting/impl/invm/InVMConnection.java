@@ -47,6 +47,8 @@ public class InVMConnection implements Connection
    private final int serverID;
 
    private final Executor executor;
+
+   private final boolean copyCapacity;
    
    private volatile boolean closing;
 
@@ -63,6 +65,20 @@ public class InVMConnection implements Connection
                          final BufferHandler handler,
                          final ConnectionLifeCycleListener listener,
                          final Executor executor)
+   {
+      this(serverID, id, handler, listener, executor, true);
+   }
+
+   /**
+    * @param copyCapacity whether the buffers written are copied with the free space after the packet. The
+    * messages sent to the server keep the capacity of their client buffer, their memory estimate is based on it.
+    */
+   public InVMConnection(final int serverID,
+                         final String id,
+                         final BufferHandler handler,
+                         final ConnectionLifeCycleListener listener,
+                         final Executor executor,
+                         final boolean copyCapacity)
    {
       this.serverID = serverID;
 
@@ -74,6 +90,8 @@ public class InVMConnection implements Connection
 
       this.executor = executor;
 
+      this.copyCapacity = copyCapacity;
+
       listener.connectionCreated(this, ProtocolType.CORE);
    }
 
@@ -118,7 +136,14 @@ public class InVMConnection implements Connection
    
    public void write(final HornetQBuffer buffer, final boolean flush, final boolean batch)
    {
-      final HornetQBuffer copied = buffer.copy(0, buffer.capacity());
+      // The packets are handed over encoded, as over the network, and each side decodes its own copy: the packet sizes
+      // feed the confirmation windows and the flow control, and the client and the server must not share messages.
+      // Not buffer.copy(): a dynamic buffer's copy allocates its array twice
+      int length = copyCapacity ? buffer.capacity() : buffer.writerIndex();
+
+      final HornetQBuffer copied = HornetQBuffers.dynamicBuffer(length);
+
+      copied.writeBytes(buffer, 0, length);
 
       copied.setIndex(buffer.readerIndex(), buffer.writerIndex());
 
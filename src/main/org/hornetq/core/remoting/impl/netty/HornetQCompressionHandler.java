@@ -0,0 +1,402 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.remoting.impl.netty;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.hornetq.core.logging.Logger;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelHandler;
+
+/**
+ * Compresses the core protocol stream of a connection.
+ *
+ * The client asks for compression sending MAGIC as the very first bytes of the connection. A core packet always
+ * starts with its length, so its first byte is 0 and the acceptor can tell both cases apart. The acceptor answers
+ * with a single byte, ACCEPTED or REFUSED, after which both sides send frames as:
+ * <pre>
+ * [int length][byte RAW][bytes]
+ * [int length][byte DEFLATED][int original length][deflated bytes]
+ * </pre>
+ * Writes smaller than the minimum size (or that don't get any smaller) are sent RAW.
+ * Connections not asking for compression go through this handler untouched.
+ *
+ * This handler must sit below the frame decoder, as a frame may carry several packets or part of a packet.
+ *
+ */
+class HornetQCompressionHandler extends SimpleChannelHandler
+{
+   // Constants -----------------------------------------------------
+
+   private static final Logger log = Logger.getLogger(HornetQCompressionHandler.class);
+
+   static final byte[] MAGIC = new byte[] { 'H', 'Q', 'Z', 1 };
+
+   static final byte ACCEPTED = 1;
+
+   static final byte REFUSED = 0;
+
+   private static final byte RAW = 0;
+
+   private static final byte DEFLATED = 1;
+
+   // length + type
+   private static final int FRAME_HEADER_SIZE = 5;
+
+   // The core protocol sends its big messages in chunks (see min-large-message-size), a bigger frame is taken as
+   // corrupted rather than buffered or inflated
+   static final int MAX_FRAME_SIZE = 100 * 1024 * 1024;
+
+   // Attributes ----------------------------------------------------
+
+   private final boolean client;
+
+   // on the acceptor, whether the connections are allowed to use compression
+   private final boolean enabled;
+
+   private final int minSize;
+
+   // the acceptor waits for the first bytes, the connector for the answer
+   private volatile boolean negotiating;
+
+   private volatile boolean compressing;
+
+   private final CountDownLatch negotiated = new CountDownLatch(1);
+
+   private ChannelBuffer cumulation;
+
+   private Deflater deflater;
+
+   private Inflater inflater;
+
+   private boolean closed;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   HornetQCompressionHandler(final boolean client, final boolean enabled, final int minSize)
+   {
+      this.client = client;
+      this.enabled = enabled;
+      this.minSize = minSize;
+      negotiating = true;
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * To be called by the connector once the channel is connected, before anything else is written.
+    * @return true if the acceptor agreed to compress the connection
+    */
+   boolean negotiate(final Channel channel, final long timeout) throws InterruptedException
+   {
+      channel.write(ChannelBuffers.wrappedBuffer(MAGIC));
+
+      if (!negotiated.await(timeout, TimeUnit.MILLISECONDS) || !channel.isConnected())
+      {
+         throw new IllegalStateException("Couldn't negotiate compression with " + channel.getRemoteAddress());
+      }
+
+      return compressing;
+   }
+
+   boolean isCompressing()
+   {
+      return compressing;
+   }
+
+   @Override
+   public void messageReceived(final ChannelHandlerContext ctx, final MessageEvent e) throws Exception
+   {
+      if (!negotiating && !compressing)
+      {
+         ctx.sendUpstream(e);
+         return;
+      }
+
+      ChannelBuffer buffer = (ChannelBuffer)e.getMessage();
+
+      if (cumulation != null && cumulation.readable())
+      {
+         cumulation.writeBytes(buffer);
+      }
+      else
+      {
+         cumulation = ChannelBuffers.dynamicBuffer(Math.max(buffer.readableBytes(), 256));
+         cumulation.writeBytes(buffer);
+      }
+
+      if (negotiating)
+      {
+         if (client)
+         {
+            compressing = cumulation.readByte() == ACCEPTED;
+         }
+         else
+         {
+            if (cumulation.getByte(cumulation.readerIndex()) != MAGIC[0])
+            {
+               // a plain core connection, handed over as a copy as the frame decoder expects buffers nobody writes to
+               negotiating = false;
+               negotiated.countDown();
+               Channels.fireMessageReceived(ctx, cumulation.readBytes(cumulation.readableBytes()), e.getRemoteAddress());
+               cumulation = null;
+               return;
+            }
+
+            if (cumulation.readableBytes() < MAGIC.length)
+            {
+               return;
+            }
+
+            for (byte b : MAGIC)
+            {
+               if (cumulation.readByte() != b)
+               {
+                  throw new IllegalStateException("Invalid compression request");
+               }
+            }
+
+            compressing = enabled;
+
+            // written from this context, so the answer itself is not compressed
+            Channels.write(ctx,
+                           Channels.future(ctx.getChannel()),
+                           ChannelBuffers.wrappedBuffer(new byte[] { enabled ? ACCEPTED : REFUSED }));
+         }
+
+         negotiating = false;
+         negotiated.countDown();
+
+         if (!compressing)
+         {
+            if (cumulation.readable())
+            {
+               Channels.fireMessageReceived(ctx,
+                                            cumulation.readBytes(cumulation.readableBytes()),
+                                            e.getRemoteAddress());
+            }
+            cumulation = null;
+            return;
+         }
+      }
+
+      while (cumulation.readableBytes() >= FRAME_HEADER_SIZE)
+      {
+         int start = cumulation.readerIndex();
+
+         int length = cumulation.getInt(start);
+
+         byte type = cumulation.getByte(start + 4);
+
+         // the frame length and the original length come from the peer, they're checked before anything is allocated
+         if (type == RAW ? length < 1 || length > MAX_FRAME_SIZE + 1
+                        : type != DEFLATED || length < FRAME_HEADER_SIZE || length > MAX_FRAME_SIZE + FRAME_HEADER_SIZE)
+         {
+            invalidFrame(ctx, "type=" + type + ", length=" + length);
+            return;
+         }
+
+         if (cumulation.readableBytes() < length + 4)
+         {
+            break;
+         }
+
+         cumulation.skipBytes(FRAME_HEADER_SIZE);
+
+         ChannelBuffer frame;
+
+         if (type == DEFLATED)
+         {
+            int originalLength = cumulation.readInt();
+
+            if (originalLength <= 0 || originalLength > MAX_FRAME_SIZE)
+            {
+               invalidFrame(ctx, "original length=" + originalLength);
+               return;
+            }
+
+            byte[] compressed = new byte[length - 5];
+            cumulation.readBytes(compressed);
+            frame = ChannelBuffers.wrappedBuffer(inflate(compressed, originalLength));
+         }
+         else
+         {
+            frame = cumulation.readBytes(length - 1);
+         }
+
+         Channels.fireMessageReceived(ctx, frame, e.getRemoteAddress());
+      }
+
+      if (!cumulation.readable())
+      {
+         cumulation = null;
+      }
+   }
+
+   @Override
+   public void writeRequested(final ChannelHandlerContext ctx, final MessageEvent e) throws Exception
+   {
+      if (compressing && e.getMessage() instanceof ChannelBuffer)
+      {
+         Channels.write(ctx, e.getFuture(), encode((ChannelBuffer)e.getMessage()), e.getRemoteAddress());
+      }
+      else
+      {
+         ctx.sendDownstream(e);
+      }
+   }
+
+   @Override
+   public void channelClosed(final ChannelHandlerContext ctx, final ChannelStateEvent e) throws Exception
+   {
+      synchronized (this)
+      {
+         closed = true;
+
+         if (deflater != null)
+         {
+            deflater.end();
+         }
+
+         if (inflater != null)
+         {
+            inflater.end();
+         }
+      }
+
+      negotiated.countDown();
+
+      super.channelClosed(ctx, e);
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   // Private -------------------------------------------------------
+
+   private void invalidFrame(final ChannelHandlerContext ctx, final String details)
+   {
+      HornetQCompressionHandler.log.warn("Invalid compressed frame received from " + ctx.getChannel().getRemoteAddress() +
+                                         " (" +
+                                         details +
+                                         "), closing the connection");
+
+      cumulation = null;
+
+      ctx.getChannel().close();
+   }
+
+   private synchronized ChannelBuffer encode(final ChannelBuffer buffer)
+   {
+      int size = buffer.readableBytes();
+
+      if (size >= minSize && !closed)
+      {
+         byte[] input = new byte[size];
+
+         buffer.getBytes(buffer.readerIndex(), input);
+
+         if (deflater == null)
+         {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+         }
+
+         deflater.reset();
+         deflater.setInput(input);
+         deflater.finish();
+
+         // only worth it if it gets smaller
+         byte[] output = new byte[size];
+
+         int compressedSize = 0;
+
+         while (!deflater.finished() && compressedSize < output.length)
+         {
+            compressedSize += deflater.deflate(output, compressedSize, output.length - compressedSize);
+         }
+
+         if (deflater.finished() && compressedSize + 4 < size)
+         {
+            ChannelBuffer frame = ChannelBuffers.buffer(FRAME_HEADER_SIZE + 4 + compressedSize);
+            frame.writeInt(1 + 4 + compressedSize);
+            frame.writeByte(DEFLATED);
+            frame.writeInt(size);
+            frame.writeBytes(output, 0, compressedSize);
+            return frame;
+         }
+      }
+
+      ChannelBuffer header = ChannelBuffers.buffer(FRAME_HEADER_SIZE);
+      header.writeInt(1 + size);
+      header.writeByte(RAW);
+
+      return ChannelBuffers.wrappedBuffer(header, buffer);
+   }
+
+   private synchronized byte[] inflate(final byte[] compressed, final int originalLength) throws DataFormatException
+   {
+      if (closed)
+      {
+         throw new IllegalStateException("Connection is closed");
+      }
+
+      if (inflater == null)
+      {
+         inflater = new Inflater();
+      }
+
+      inflater.reset();
+      inflater.setInput(compressed);
+
+      byte[] output = new byte[originalLength];
+
+      int read = 0;
+
+      while (read < originalLength && !inflater.finished())
+      {
+         int n = inflater.inflate(output, read, originalLength - read);
+
+         if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+         {
+            break;
+         }
+
+         read += n;
+      }
+
+      if (read != originalLength)
+      {
+         HornetQCompressionHandler.log.warn("Expected " + originalLength + " bytes and inflated " + read);
+         throw new DataFormatException("Invalid compressed frame");
+      }
+
+      return output;
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
@@ -160,11 +160,26 @@ public class HornetQFrameDecoder2 extends SimpleChannelUpstreamHandler
             break;
          }
 
-         // Convert to dynamic buffer (this requires copy)
-         // XXX Tune this value: Increasing the initial capacity of the dynamic
-         // buffer might reduce the chance of additional memory copy.
-         ChannelBuffer frame = ChannelBuffers.dynamicBuffer(length + DataConstants.SIZE_INT);
-         frame.writeBytes(in, length + DataConstants.SIZE_INT);
+         ChannelBuffer frame;
+
+         if (length + DataConstants.SIZE_INT >= in.capacity() / 2 && !(in instanceof DynamicChannelBuffer))
+         {
+            // Netty doesn't reuse its read buffers, so a big frame is handed over as a slice of it and the message
+            // decoded from it won't copy its body until it's changed (see MessageImpl).
+            // Small frames are still copied so they don't keep a much bigger read buffer alive.
+            // Dynamic buffers are excluded as append() may discard their read bytes.
+            frame = in.slice(in.readerIndex(), length + DataConstants.SIZE_INT);
+            in.skipBytes(length + DataConstants.SIZE_INT);
+         }
+         else
+         {
+            // Convert to dynamic buffer (this requires copy)
+            // XXX Tune this value: Increasing the initial capacity of the dynamic
+            // buffer might reduce the chance of additional memory copy.
+            frame = ChannelBuffers.dynamicBuffer(length + DataConstants.SIZE_INT);
+            frame.writeBytes(in, length + DataConstants.SIZE_INT);
+         }
+
          frame.skipBytes(DataConstants.SIZE_INT);
          Channels.fireMessageReceived(ctx, frame);
       }
@@ -135,6 +135,8 @@ public class NettyAcceptor implements Acceptor
 
    private final int nioRemotingThreads;
 
+   private final int backlog;
+
    private final HttpKeepAliveRunnable httpKeepAliveRunnable;
 
    private final ConcurrentMap<Object, NettyConnection> connections = new ConcurrentHashMap<Object, NettyConnection>();
@@ -155,6 +157,12 @@ public class NettyAcceptor implements Acceptor
 
    private final long batchDelay;
 
+   private final boolean adaptiveBatching;
+
+   private final boolean compressionEnabled;
+
+   private final int compressionMinSize;
+
    private final boolean directDeliver;
 
    public NettyAcceptor(final Map<String, Object> configuration,
@@ -207,6 +215,10 @@ public class NettyAcceptor implements Acceptor
                                                               -1,
                                                               configuration);
 
+      backlog = ConfigurationHelper.getIntProperty(TransportConstants.BACKLOG_PROP_NAME,
+                                                   TransportConstants.DEFAULT_BACKLOG,
+                                                   configuration);
+
       useInvm = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_INVM_PROP_NAME,
                                                        TransportConstants.DEFAULT_USE_INVM,
                                                        configuration);
@@ -262,6 +274,18 @@ public class NettyAcceptor implements Acceptor
                                                        TransportConstants.DEFAULT_BATCH_DELAY,
                                                        configuration);
 
+      adaptiveBatching = ConfigurationHelper.getBooleanProperty(TransportConstants.ADAPTIVE_BATCHING_PROP_NAME,
+                                                                TransportConstants.DEFAULT_ADAPTIVE_BATCHING,
+                                                                configuration);
+
+      compressionEnabled = ConfigurationHelper.getBooleanProperty(TransportConstants.COMPRESSION_ENABLED_PROP_NAME,
+                                                                  TransportConstants.DEFAULT_COMPRESSION_ENABLED,
+                                                                  configuration);
+
+      compressionMinSize = ConfigurationHelper.getIntProperty(TransportConstants.COMPRESSION_MIN_SIZE_PROP_NAME,
+                                                              TransportConstants.DEFAULT_COMPRESSION_MIN_SIZE,
+                                                              configuration);
+
       directDeliver = ConfigurationHelper.getBooleanProperty(TransportConstants.DIRECT_DELIVER,
                                                              TransportConstants.DEFAULT_DIRECT_DELIVER,
                                                              configuration);
@@ -357,6 +381,12 @@ public class NettyAcceptor implements Acceptor
 
             if (protocol == ProtocolType.CORE)
             {
+               if (!httpEnabled)
+               {
+                  // Always there, so the connections asking for compression get an answer even if it's disabled
+                  handlers.put("compression", new HornetQCompressionHandler(false, compressionEnabled, compressionMinSize));
+               }
+
                // Core protocol uses its own optimised decoder
 
                handlers.put("hornetq-decoder", new HornetQFrameDecoder2());
@@ -414,6 +444,10 @@ public class NettyAcceptor implements Acceptor
       {
          bootstrap.setOption("child.sendBufferSize", tcpSendBufferSize);
       }
+      if (backlog != -1)
+      {
+         bootstrap.setOption("backlog", backlog);
+      }
       bootstrap.setOption("reuseAddress", true);
       bootstrap.setOption("child.reuseAddress", true);
       bootstrap.setOption("child.keepAlive", true);
@@ -625,7 +659,11 @@ public class NettyAcceptor implements Acceptor
       @Override
       public void channelConnected(final ChannelHandlerContext ctx, final ChannelStateEvent e) throws Exception
       {
-         new NettyConnection(e.getChannel(), new Listener(), !httpEnabled && batchDelay > 0, directDeliver);
+         new NettyConnection(e.getChannel(),
+                             new Listener(),
+                             !httpEnabled && (batchDelay > 0 || adaptiveBatching),
+                             directDeliver,
+                             adaptiveBatching ? threadPool : null);
 
          SslHandler sslHandler = ctx.getPipeline().get(SslHandler.class);
          if (sslHandler != null)
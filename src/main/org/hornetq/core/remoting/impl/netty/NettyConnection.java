@@ -13,11 +13,15 @@
 
 package org.hornetq.core.remoting.impl.netty;
 
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.hornetq.api.core.HornetQBuffer;
-import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.core.buffers.impl.ChannelBufferWrapper;
 import org.hornetq.core.logging.Logger;
 import org.hornetq.spi.core.protocol.ProtocolType;
@@ -25,9 +29,14 @@ import org.hornetq.spi.core.remoting.Connection;
 import org.hornetq.spi.core.remoting.ConnectionLifeCycleListener;
 import org.hornetq.spi.core.remoting.ReadyListener;
 import org.hornetq.utils.ConcurrentHashSet;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferFactory;
 import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.buffer.DirectChannelBufferFactory;
+import org.jboss.netty.buffer.HeapChannelBufferFactory;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
 import org.jboss.netty.handler.ssl.SslHandler;
 
 /**
@@ -45,6 +54,18 @@ public class NettyConnection implements Connection
 
    private static final int BATCHING_BUFFER_SIZE = 8192;
 
+   // Buffers that grew beyond this size (large packets) are left to the GC instead of going back to the pools
+   private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+   /*
+    * Buffers are shared by all the connections.
+    * Encode buffers go back to the pool as soon as they are copied into a batch buffer, and any buffer handed to
+    * Netty goes back once its write future is done, as Netty 3 buffers are not reference counted.
+    */
+   private static final BufferPool encodeBufferPool = new BufferPool(HeapChannelBufferFactory.getInstance(), 1024);
+
+   private static final BufferPool batchBufferPool = new BufferPool(DirectChannelBufferFactory.getInstance(), 128);
+
    // Attributes ----------------------------------------------------
 
    private final Channel channel;
@@ -60,6 +81,20 @@ public class NettyConnection implements Connection
    private volatile HornetQBuffer batchBuffer;
 
    private final AtomicBoolean writeLock = new AtomicBoolean(false);
+
+   // With adaptive batching, the batch is flushed by a task on this executor instead of the batch-delay timer
+   private final Executor flushExecutor;
+
+   // guarded by writeLock
+   private boolean flushScheduled;
+
+   private final Runnable flusher = new Runnable()
+   {
+      public void run()
+      {
+         flushBatchBuffer();
+      }
+   };
    
    private Set<ReadyListener> readyListeners = new ConcurrentHashSet<ReadyListener>();
 
@@ -71,6 +106,20 @@ public class NettyConnection implements Connection
                           final ConnectionLifeCycleListener listener,
                           boolean batchingEnabled,
                           boolean directDeliver)
+   {
+      this(channel, listener, batchingEnabled, directDeliver, null);
+   }
+
+   /**
+    * @param flushExecutor if not null, batched writes are flushed as soon as this executor gets to run the flush
+    *                      (or when the batch is full), so the batch grows with the write rate instead of waiting
+    *                      for a fixed batch-delay
+    */
+   public NettyConnection(final Channel channel,
+                          final ConnectionLifeCycleListener listener,
+                          boolean batchingEnabled,
+                          boolean directDeliver,
+                          final Executor flushExecutor)
    {
       this.channel = channel;
 
@@ -80,6 +129,8 @@ public class NettyConnection implements Connection
 
       this.directDeliver = directDeliver;
 
+      this.flushExecutor = flushExecutor;
+
       listener.connectionCreated(this, ProtocolType.CORE);
    }
 
@@ -126,7 +177,12 @@ public class NettyConnection implements Connection
 
    public HornetQBuffer createBuffer(final int size)
    {
-      return new ChannelBufferWrapper(ChannelBuffers.dynamicBuffer(size));
+      if (size > MAX_POOLED_BUFFER_SIZE)
+      {
+         return new ChannelBufferWrapper(ChannelBuffers.dynamicBuffer(size));
+      }
+
+      return encodeBufferPool.acquire(size);
    }
 
    public Object getID()
@@ -146,11 +202,11 @@ public class NettyConnection implements Connection
       {
          try
          {
-            if (batchBuffer != null && batchBuffer.readable())
+            if (batchBuffer != null)
             {
-               channel.write(batchBuffer.channelBuffer());
+               writeToChannel(batchBuffer);
 
-               batchBuffer = HornetQBuffers.dynamicBuffer(BATCHING_BUFFER_SIZE);
+               batchBuffer = null;
             }
          }
          finally
@@ -174,41 +230,42 @@ public class NettyConnection implements Connection
 
       try
       {
-         if (batchBuffer == null && batchingEnabled && batched && !flush)
+         // The batch buffer is only taken from the pool when there is something to batch,
+         // and anything written after it has to go through it to keep the ordering
+         if (batchBuffer != null || batchingEnabled && batched && !flush)
          {
-            // Lazily create batch buffer
+            if (buffer.writerIndex() < BATCHING_BUFFER_SIZE)
+            {
+               if (batchBuffer == null)
+               {
+                  batchBuffer = batchBufferPool.acquire(BATCHING_BUFFER_SIZE);
+               }
 
-            batchBuffer = HornetQBuffers.dynamicBuffer(BATCHING_BUFFER_SIZE);
-         }
+               batchBuffer.writeBytes(buffer, 0, buffer.writerIndex());
 
-         if (batchBuffer != null)
-         {
-            batchBuffer.writeBytes(buffer, 0, buffer.writerIndex());
+               // the packet was copied, so its buffer can be reused right away
+               release(buffer);
+
+               if (batchBuffer.writerIndex() < BATCHING_BUFFER_SIZE && batched && !flush && scheduleFlush())
+               {
+                  return;
+               }
 
-            if (batchBuffer.writerIndex() >= BATCHING_BUFFER_SIZE || !batched || flush)
-            {
                // If the batch buffer is full or it's flush param or not batched then flush the buffer
 
                buffer = batchBuffer;
             }
-            else
+            else if (batchBuffer != null)
             {
-               return;
-            }
+               // big packets are not copied into the batch, the batch is just written ahead of them
 
-            if (!batched || flush)
-            {
-               batchBuffer = null;
+               writeToChannel(batchBuffer);
             }
-            else
-            {
-               // Create a new buffer
 
-               batchBuffer = HornetQBuffers.dynamicBuffer(BATCHING_BUFFER_SIZE);
-            }
+            batchBuffer = null;
          }
 
-         ChannelFuture future = channel.write(buffer.channelBuffer());
+         ChannelFuture future = writeToChannel(buffer);
 
          if (flush)
          {
@@ -279,6 +336,147 @@ public class NettyConnection implements Connection
 
    // Private -------------------------------------------------------
 
+   /**
+    * Called holding the write lock.
+    * Writes arriving before the flusher gets to run are coalesced in the same batch: under light load the flush
+    * happens almost right away, under heavy load the batch fills up to BATCHING_BUFFER_SIZE.
+    * @return false if the batch has to be written right away
+    */
+   private boolean scheduleFlush()
+   {
+      if (flushExecutor != null && !flushScheduled)
+      {
+         try
+         {
+            flushExecutor.execute(flusher);
+         }
+         catch (RejectedExecutionException e)
+         {
+            // the executor is shutting down
+            return false;
+         }
+
+         flushScheduled = true;
+      }
+
+      return true;
+   }
+
+   private void flushBatchBuffer()
+   {
+      while (!writeLock.compareAndSet(false, true))
+      {
+         Thread.yield();
+      }
+
+      try
+      {
+         flushScheduled = false;
+
+         if (batchBuffer != null)
+         {
+            writeToChannel(batchBuffer);
+
+            batchBuffer = null;
+         }
+      }
+      finally
+      {
+         writeLock.set(false);
+      }
+   }
+
+   private ChannelFuture writeToChannel(final HornetQBuffer buffer)
+   {
+      ChannelFuture future = channel.write(buffer.channelBuffer());
+
+      if (future != null && buffer instanceof PooledBuffer)
+      {
+         future.addListener((PooledBuffer)buffer);
+      }
+
+      return future;
+   }
+
+   private static void release(final HornetQBuffer buffer)
+   {
+      if (buffer instanceof PooledBuffer)
+      {
+         ((PooledBuffer)buffer).release();
+      }
+   }
+
    // Inner classes -------------------------------------------------
 
+   private static final class BufferPool
+   {
+      private final ChannelBufferFactory factory;
+
+      private final int maxBuffers;
+
+      private final Queue<PooledBuffer> buffers = new ConcurrentLinkedQueue<PooledBuffer>();
+
+      private final AtomicInteger size = new AtomicInteger(0);
+
+      BufferPool(final ChannelBufferFactory factory, final int maxBuffers)
+      {
+         this.factory = factory;
+         this.maxBuffers = maxBuffers;
+      }
+
+      PooledBuffer acquire(final int initialSize)
+      {
+         PooledBuffer buffer = buffers.poll();
+
+         if (buffer == null)
+         {
+            return new PooledBuffer(ChannelBuffers.dynamicBuffer(initialSize, factory), this);
+         }
+
+         size.decrementAndGet();
+
+         return buffer;
+      }
+
+      void release(final PooledBuffer buffer)
+      {
+         if (buffer.capacity() > MAX_POOLED_BUFFER_SIZE)
+         {
+            return;
+         }
+
+         if (size.incrementAndGet() > maxBuffers)
+         {
+            size.decrementAndGet();
+            return;
+         }
+
+         buffer.clear();
+
+         buffers.offer(buffer);
+      }
+   }
+
+   /** A buffer that goes back to its pool once its write is complete */
+   private static final class PooledBuffer extends ChannelBufferWrapper implements ChannelFutureListener
+   {
+      private final BufferPool pool;
+
+      PooledBuffer(final ChannelBuffer buffer, final BufferPool pool)
+      {
+         super(buffer);
+         this.pool = pool;
+      }
+
+      void release()
+      {
+         pool.release(this);
+      }
+
+      public void operationComplete(final ChannelFuture future) throws Exception
+      {
+         release();
+      }
+   }
+
 }
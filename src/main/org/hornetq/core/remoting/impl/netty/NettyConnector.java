@@ -90,6 +90,8 @@ public class NettyConnector implements Connector
 
    private static final Logger log = Logger.getLogger(NettyConnector.class);
 
+   private static final long COMPRESSION_NEGOTIATION_TIMEOUT = 10000;
+
    // Attributes ----------------------------------------------------
 
    private ClientSocketChannelFactory channelFactory;
@@ -132,6 +134,14 @@ public class NettyConnector implements Connector
 
    private final long batchDelay;
 
+   private final boolean adaptiveBatching;
+
+   private final boolean compressionEnabled;
+
+   private final int compressionMinSize;
+
+   private final Executor threadPool;
+
    private final ConcurrentMap<Object, Connection> connections = new ConcurrentHashMap<Object, Connection>();
 
    private final String servletPath;
@@ -249,8 +259,22 @@ public class NettyConnector implements Connector
                                                        TransportConstants.DEFAULT_BATCH_DELAY,
                                                        configuration);
 
+      adaptiveBatching = ConfigurationHelper.getBooleanProperty(TransportConstants.ADAPTIVE_BATCHING_PROP_NAME,
+                                                                TransportConstants.DEFAULT_ADAPTIVE_BATCHING,
+                                                                configuration);
+
+      compressionEnabled = ConfigurationHelper.getBooleanProperty(TransportConstants.COMPRESSION_ENABLED_PROP_NAME,
+                                                                  TransportConstants.DEFAULT_COMPRESSION_ENABLED,
+                                                                  configuration);
+
+      compressionMinSize = ConfigurationHelper.getIntProperty(TransportConstants.COMPRESSION_MIN_SIZE_PROP_NAME,
+                                                              TransportConstants.DEFAULT_COMPRESSION_MIN_SIZE,
+                                                              configuration);
+
       this.closeExecutor = closeExecutor;
 
+      this.threadPool = threadPool;
+
       virtualExecutor = new VirtualExecutorService(threadPool);
 
       this.scheduledThreadPool = scheduledThreadPool;
@@ -361,6 +385,11 @@ public class NettyConnector implements Connector
                handlers.add(new HttpHandler());
             }
 
+            if (compressionEnabled && !httpEnabled && !useServlet)
+            {
+               handlers.add(new HornetQCompressionHandler(true, true, compressionMinSize));
+            }
+
             handlers.add(new HornetQFrameDecoder2());
 
             handlers.add(new HornetQClientChannelHandler(channelGroup, handler, new Listener()));
@@ -473,7 +502,31 @@ public class NettyConnector implements Connector
             ch.getPipeline().get(HornetQChannelHandler.class).active = true;
          }
 
-         NettyConnection conn = new NettyConnection(ch, new Listener(), !httpEnabled && batchDelay > 0, false);
+         HornetQCompressionHandler compressionHandler = ch.getPipeline().get(HornetQCompressionHandler.class);
+         if (compressionHandler != null)
+         {
+            try
+            {
+               if (!compressionHandler.negotiate(ch, NettyConnector.COMPRESSION_NEGOTIATION_TIMEOUT))
+               {
+                  NettyConnector.log.warn("Compression was requested but it is not enabled on the acceptor at " +
+                                          ch.getRemoteAddress() +
+                                          ", the connection won't be compressed");
+               }
+            }
+            catch (Exception e)
+            {
+               NettyConnector.log.warn(e.getMessage(), e);
+               ch.close().awaitUninterruptibly();
+               return null;
+            }
+         }
+
+         NettyConnection conn = new NettyConnection(ch,
+                                                    new Listener(),
+                                                    !httpEnabled && (batchDelay > 0 || adaptiveBatching),
+                                                    false,
+                                                    adaptiveBatching ? threadPool : null);
 
          return conn;
       }
@@ -69,14 +69,23 @@ public class TransportConstants
    public static final String TCP_RECEIVEBUFFER_SIZE_PROPNAME = "tcp-receive-buffer-size";
    
    public static final String NIO_REMOTING_THREADS_PROPNAME = "nio-remoting-threads";
+
+   public static final String BACKLOG_PROP_NAME = "backlog";
    
    public static final String BATCH_DELAY = "batch-delay";
+
+   public static final String ADAPTIVE_BATCHING_PROP_NAME = "adaptive-batching";
+
+   public static final String COMPRESSION_ENABLED_PROP_NAME = "compression-enabled";
+
+   public static final String COMPRESSION_MIN_SIZE_PROP_NAME = "compression-min-size";
    
    public static final String DIRECT_DELIVER = "direct-deliver";
    
    public static final boolean DEFAULT_SSL_ENABLED = false;
 
-   public static final boolean DEFAULT_USE_NIO_SERVER = false;
+   // NIO doesn't need a thread per connection, so the server scales to many more connections
+   public static final boolean DEFAULT_USE_NIO_SERVER = true;
 
    // For client, using old IO can be quicker
    public static final boolean DEFAULT_USE_NIO_CLIENT = false;
@@ -106,6 +115,8 @@ public class TransportConstants
    public static final int DEFAULT_TCP_SENDBUFFER_SIZE = 32768;
 
    public static final int DEFAULT_TCP_RECEIVEBUFFER_SIZE = 32768;
+
+   public static final int DEFAULT_BACKLOG = -1;
    
    public static final boolean DEFAULT_HTTP_ENABLED = false;
 
@@ -122,6 +133,12 @@ public class TransportConstants
    public static final String DEFAULT_SERVLET_PATH = "/messaging/HornetQServlet";
    
    public static final long DEFAULT_BATCH_DELAY = 0;
+
+   public static final boolean DEFAULT_ADAPTIVE_BATCHING = false;
+
+   public static final boolean DEFAULT_COMPRESSION_ENABLED = false;
+
+   public static final int DEFAULT_COMPRESSION_MIN_SIZE = 1024;
    
    public static final boolean DEFAULT_DIRECT_DELIVER = true;
 
@@ -149,7 +166,11 @@ public class TransportConstants
       allowableAcceptorKeys.add(TransportConstants.TCP_SENDBUFFER_SIZE_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.TCP_RECEIVEBUFFER_SIZE_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.NIO_REMOTING_THREADS_PROPNAME);
+      allowableAcceptorKeys.add(TransportConstants.BACKLOG_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.BATCH_DELAY);
+      allowableAcceptorKeys.add(TransportConstants.ADAPTIVE_BATCHING_PROP_NAME);
+      allowableAcceptorKeys.add(TransportConstants.COMPRESSION_ENABLED_PROP_NAME);
+      allowableAcceptorKeys.add(TransportConstants.COMPRESSION_MIN_SIZE_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.DIRECT_DELIVER);
 
       ALLOWABLE_ACCEPTOR_KEYS = Collections.unmodifiableSet(allowableAcceptorKeys);
@@ -172,6 +193,9 @@ public class TransportConstants
       allowableConnectorKeys.add(TransportConstants.TCP_RECEIVEBUFFER_SIZE_PROPNAME);
       allowableConnectorKeys.add(TransportConstants.NIO_REMOTING_THREADS_PROPNAME);
       allowableConnectorKeys.add(TransportConstants.BATCH_DELAY);
+      allowableConnectorKeys.add(TransportConstants.ADAPTIVE_BATCHING_PROP_NAME);
+      allowableConnectorKeys.add(TransportConstants.COMPRESSION_ENABLED_PROP_NAME);
+      allowableConnectorKeys.add(TransportConstants.COMPRESSION_MIN_SIZE_PROP_NAME);
 
       ALLOWABLE_CONNECTOR_KEYS = Collections.unmodifiableSet(allowableConnectorKeys);
    }
@@ -45,4 +45,19 @@ public interface RemotingService extends HornetQComponent
    void freeze();
 
    RemotingConnection getServerSideReplicatingConnection();
+
+   /**
+    * Returns the number of connections closed since this service was created because their connection TTL was hit.
+    */
+   long getExpiredConnectionCount();
+
+   /**
+    * Returns the number of connections flushed or checked for their TTL by the last failure check.
+    */
+   int getLastConnectionCheckCount();
+
+   /**
+    * Returns the time taken by the last failure check, in milliseconds.
+    */
+   long getLastConnectionCheckDuration();
 }
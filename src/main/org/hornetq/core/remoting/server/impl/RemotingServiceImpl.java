@@ -16,6 +16,7 @@ package org.hornetq.core.remoting.server.impl;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,6 +34,7 @@ import org.hornetq.api.core.Interceptor;
 import org.hornetq.api.core.TransportConfiguration;
 import org.hornetq.core.config.Configuration;
 import org.hornetq.core.logging.Logger;
+import org.hornetq.core.protocol.core.CoreRemotingConnection;
 import org.hornetq.core.protocol.core.impl.CoreProtocolManagerFactory;
 import org.hornetq.core.protocol.stomp.StompProtocolManagerFactory;
 import org.hornetq.core.remoting.FailureListener;
@@ -50,8 +52,10 @@ import org.hornetq.spi.core.remoting.AcceptorFactory;
 import org.hornetq.spi.core.remoting.BufferHandler;
 import org.hornetq.spi.core.remoting.Connection;
 import org.hornetq.spi.core.remoting.ConnectionLifeCycleListener;
+import org.hornetq.utils.ConcurrentHashSet;
 import org.hornetq.utils.ConfigurationHelper;
 import org.hornetq.utils.HornetQThreadFactory;
+import org.hornetq.utils.TimingWheel;
 
 /**
  * @author <a href="mailto:jmesnil@redhat.com">Jeff Mesnil</a>
@@ -67,6 +71,9 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
 
    public static final long CONNECTION_TTL_CHECK_INTERVAL = 2000;
 
+   // with one tick per check interval, TTLs up to ~17 minutes are checked in a single revolution of the wheel
+   private static final int CONNECTION_TTL_WHEEL_SIZE = 512;
+
    // Attributes ----------------------------------------------------
 
    private volatile boolean started = false;
@@ -79,6 +86,20 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
 
    private final Map<Object, ConnectionEntry> connections = new ConcurrentHashMap<Object, ConnectionEntry>();
 
+   // The connections by the time their TTL must be checked, so the failure check thread doesn't visit them all
+   private final TimingWheel<ConnectionEntry> connectionTTLWheel = new TimingWheel<ConnectionEntry>(RemotingServiceImpl.CONNECTION_TTL_WHEEL_SIZE,
+                                                                                                    RemotingServiceImpl.CONNECTION_TTL_CHECK_INTERVAL,
+                                                                                                    System.currentTimeMillis());
+
+   // The connections which received data since the last failure check, their confirmations may need flushing
+   private final Set<ConnectionEntry> activeConnections = new ConcurrentHashSet<ConnectionEntry>();
+
+   private volatile long expiredConnectionCount;
+
+   private volatile int lastConnectionCheckCount;
+
+   private volatile long lastConnectionCheckDuration;
+
    private final Configuration config;
 
    private final HornetQServer server;
@@ -279,6 +300,8 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
          RemotingConnection conn = entry.connection;
 
          conn.disconnect();
+
+         connectionTTLWheel.cancel(entry);
       }
 
       for (Acceptor acceptor : acceptors)
@@ -290,6 +313,8 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
 
       connections.clear();
 
+      activeConnections.clear();
+
       if (managementService != null)
       {
          managementService.unregisterAcceptors();
@@ -319,6 +344,10 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
 
       if (entry != null)
       {
+         connectionTTLWheel.cancel(entry);
+
+         activeConnections.remove(entry);
+
          return entry.connection;
       }
       else
@@ -346,6 +375,21 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
       return serverSideReplicatingConnection;
    }
 
+   public long getExpiredConnectionCount()
+   {
+      return expiredConnectionCount;
+   }
+
+   public int getLastConnectionCheckCount()
+   {
+      return lastConnectionCheckCount;
+   }
+
+   public long getLastConnectionCheckDuration()
+   {
+      return lastConnectionCheckDuration;
+   }
+
    // ConnectionLifeCycleListener implementation -----------------------------------
 
    private ProtocolManager getProtocolManager(ProtocolType protocol)
@@ -367,10 +411,25 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
          throw new IllegalArgumentException("Unknown protocol " + protocol);
       }
 
-      ConnectionEntry entry = pmgr.createConnectionEntry(connection);
+      final ConnectionEntry entry = pmgr.createConnectionEntry(connection);
 
       connections.put(connection.getID(), entry);
 
+      if (entry.connection instanceof CoreRemotingConnection)
+      {
+         // Confirmations may be made long after the packets were received, e.g. once the journal has synced. The
+         // connection is flushed by the next pass then, even if it receives nothing else meanwhile
+         ((CoreRemotingConnection)entry.connection).setConfirmationsPendingCallback(new Runnable()
+         {
+            public void run()
+            {
+               markActive(entry);
+            }
+         });
+      }
+
+      scheduleTTLCheck(entry);
+
       if (config.isBackup())
       {
          serverSideReplicatingConnection = entry.connection;
@@ -406,6 +465,10 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
          {
             connections.remove(connectionID);
 
+            connectionTTLWheel.cancel(conn);
+
+            activeConnections.remove(conn);
+
             conn.connection.destroy();
          }
 
@@ -446,6 +509,26 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
 
    // Private -------------------------------------------------------
 
+   private void markActive(final ConnectionEntry entry)
+   {
+      if (!activeConnections.contains(entry))
+      {
+         activeConnections.add(entry);
+      }
+   }
+
+   private void scheduleTTLCheck(final ConnectionEntry entry)
+   {
+      if (entry.ttl != -1)
+      {
+         connectionTTLWheel.schedule(entry, entry.lastCheck + entry.ttl);
+      }
+      else
+      {
+         connectionTTLWheel.cancel(entry);
+      }
+   }
+
    // Inner classes -------------------------------------------------
 
    private final class DelegatingBufferHandler implements BufferHandler
@@ -457,6 +540,8 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
          if (conn != null)
          {
             conn.connection.bufferReceived(connectionID, buffer);
+
+            markActive(conn);
          }
       }
    }
@@ -499,33 +584,58 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
          {
             long now = System.currentTimeMillis();
 
+            int checked = 0;
+
+            Set<ConnectionEntry> active = new HashSet<ConnectionEntry>();
+
+            for (Iterator<ConnectionEntry> iterator = activeConnections.iterator(); iterator.hasNext();)
+            {
+               active.add(iterator.next());
+
+               iterator.remove();
+            }
+
+            // the connections which received data or made confirmations since the previous pass
+            for (ConnectionEntry entry : active)
+            {
+               if (connections.get(entry.connection.getID()) == entry)
+               {
+                  entry.connection.flush();
+
+                  // a ping may have changed the TTL
+                  scheduleTTLCheck(entry);
+
+                  checked++;
+               }
+            }
+
             Set<Object> idsToRemove = new HashSet<Object>();
 
-            for (ConnectionEntry entry : connections.values())
+            for (ConnectionEntry entry : connectionTTLWheel.expire(now))
             {
                RemotingConnection conn = entry.connection;
 
-               boolean flush = true;
-
-               if (entry.ttl != -1)
+               if (connections.get(conn.getID()) != entry || entry.ttl == -1)
                {
-                  if (now >= entry.lastCheck + entry.ttl)
-                  {
-                     if (!conn.checkDataReceived())
-                     {
-                        idsToRemove.add(conn.getID());
-
-                        flush = false;
-                     }
-                     else
-                     {
-                        entry.lastCheck = now;
-                     }
-                  }
+                  continue;
                }
 
-               if (flush)
+               checked++;
+
+               if (now < entry.lastCheck + entry.ttl)
                {
+                  scheduleTTLCheck(entry);
+               }
+               else if (!conn.checkDataReceived())
+               {
+                  idsToRemove.add(conn.getID());
+               }
+               else
+               {
+                  entry.lastCheck = now;
+
+                  scheduleTTLCheck(entry);
+
                   conn.flush();
                }
             }
@@ -542,8 +652,14 @@ public class RemotingServiceImpl implements RemotingService, ConnectionLifeCycle
                                                                    "Please check user manual for more information." +
                                                                    " The connection will now be closed.");
                conn.fail(me);
+
+               expiredConnectionCount++;
             }
 
+            lastConnectionCheckCount = checked;
+
+            lastConnectionCheckDuration = System.currentTimeMillis() - now;
+
             synchronized (this)
             {
                long toWait = pauseInterval;
@@ -133,6 +133,12 @@ public interface Queue extends Bindable
 
    LinkedListIterator<MessageReference> iterator();
 
+   /**
+    * Iterates over the messages in memory and then over the messages still in page files, without depaging them.
+    * The iterator is read only.
+    */
+   LinkedListIterator<MessageReference> browserIterator();
+
    void setExpiryAddress(SimpleString expiryAddress);
 
    /**
@@ -46,6 +46,8 @@ public interface ServerConsumer extends Consumer
    
    void individualAcknowledge(boolean autoCommitAcks, Transaction tx, long messageID) throws Exception;
 
+   void individualAcknowledge(boolean autoCommitAcks, Transaction tx, long[] messageIDs) throws Exception;
+
    void forceDelivery(long sequence);   
    
    void setTransferring(boolean transferring);
@@ -55,6 +57,16 @@ public interface ServerConsumer extends Consumer
    long getCreationTime();
 
    String getSessionID();
+
+   /**
+    * @return the flow control credits the consumer has left, -1 if it is not flow controlled
+    */
+   int getCredits();
+
+   /**
+    * @return the flow control credits granted by the client since the consumer was created
+    */
+   long getCreditsReceived();
 }
 
 
@@ -52,6 +52,8 @@ public interface ServerSession
    
    void individualAcknowledge(long consumerID, long messageID) throws Exception;
 
+   void individualAcknowledge(long consumerID, long[] messageIDs) throws Exception;
+
    void expire(long consumerID, long messageID) throws Exception;
 
    void rollback(boolean considerLastMessageAsDelivered) throws Exception;
@@ -108,6 +110,8 @@ public interface ServerSession
 
    void send(ServerMessage message, boolean direct) throws Exception;
 
+   void send(List<ServerMessage> messages, boolean direct) throws Exception;
+
    void sendLarge(MessageInternal msg) throws Exception;
 
    void forceConsumerDelivery(long consumerID, long sequence) throws Exception;
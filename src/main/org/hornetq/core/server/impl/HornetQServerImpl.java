@@ -1186,7 +1186,9 @@ public class HornetQServerImpl implements HornetQServer
                                                              executorFactory,
                                                              configuration.isJournalSyncNonTransactional()),
                                    storageManager,
-                                   addressSettingsRepository);
+                                   addressSettingsRepository,
+                                   configuration.getGlobalMaxSize(),
+                                   configuration.getGlobalMaxDiskSize());
    }
 
    /** 
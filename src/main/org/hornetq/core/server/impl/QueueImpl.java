@@ -20,6 +20,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
@@ -625,6 +626,11 @@ public class QueueImpl implements Queue
       return new SynchronizedIterator(messageReferences.iterator());
    }
 
+   public LinkedListIterator<MessageReference> browserIterator()
+   {
+      return new BrowserIterator(iterator(), pageSubscription == null ? null : pageSubscription.browserIterator());
+   }
+
    public synchronized MessageReference removeReferenceWithID(final long id) throws Exception
    {
       LinkedListIterator<MessageReference> iterator = iterator();
@@ -2141,6 +2147,82 @@ public class QueueImpl implements Queue
       }
    }
 
+   /**
+    * The messages in memory first, then the paged messages not depaged yet.
+    * A message depaged while the browser is on the memory list may not be seen, but it won't be seen twice.
+    */
+   private static class BrowserIterator implements LinkedListIterator<MessageReference>
+   {
+      private final LinkedListIterator<MessageReference> memoryIterator;
+
+      private final LinkedListIterator<PagedReference> pageIterator;
+
+      private boolean onPage = false;
+
+      BrowserIterator(final LinkedListIterator<MessageReference> memoryIterator,
+                      final LinkedListIterator<PagedReference> pageIterator)
+      {
+         this.memoryIterator = memoryIterator;
+         this.pageIterator = pageIterator;
+      }
+
+      public boolean hasNext()
+      {
+         if (!onPage)
+         {
+            if (memoryIterator.hasNext())
+            {
+               return true;
+            }
+
+            if (pageIterator == null)
+            {
+               return false;
+            }
+
+            onPage = true;
+         }
+
+         return pageIterator.hasNext();
+      }
+
+      public MessageReference next()
+      {
+         if (!hasNext())
+         {
+            throw new NoSuchElementException();
+         }
+
+         return onPage ? pageIterator.next() : memoryIterator.next();
+      }
+
+      public void repeat()
+      {
+         if (onPage)
+         {
+            pageIterator.repeat();
+         }
+         else
+         {
+            memoryIterator.repeat();
+         }
+      }
+
+      public void remove()
+      {
+         throw new UnsupportedOperationException("Browser iterators are read only");
+      }
+
+      public void close()
+      {
+         memoryIterator.close();
+         if (pageIterator != null)
+         {
+            pageIterator.close();
+         }
+      }
+   }
+
    /* For external use we need to use a synchronized version since the list is not thread safe */
    private class SynchronizedIterator implements LinkedListIterator<MessageReference>
    {
@@ -13,8 +13,11 @@
 
 package org.hornetq.core.server.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -90,6 +93,9 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
 
    private volatile AtomicInteger availableCredits = new AtomicInteger(0);
 
+   // only updated by the session, when it receives credits
+   private volatile long creditsReceived;
+
    private boolean started;
 
    private volatile LargeMessageDeliverer largeMessageDeliverer = null;
@@ -177,7 +183,7 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
       
       if (browseOnly)
       {
-         browserDeliverer = new BrowserDeliverer(messageQueue.iterator());
+         browserDeliverer = new BrowserDeliverer(messageQueue.browserIterator());
       }
       else
       {
@@ -516,6 +522,8 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
       }
       else
       {
+         creditsReceived += credits;
+
          int previous = availableCredits.getAndAdd(credits);
 
          if (ServerConsumerImpl.trace)
@@ -549,6 +557,8 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
       // Acknowledge acknowledges all refs delivered by the consumer up to and including the one explicitly
       // acknowledged
 
+      List<MessageReference> refs = new ArrayList<MessageReference>();
+
       MessageReference ref;
       do
       {
@@ -556,6 +566,8 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
 
          if (ref == null)
          {
+            acknowledge(autoCommitAcks, tx, refs);
+
             throw new IllegalStateException(System.identityHashCode(this) + " Could not find reference on consumerID=" +
                                             id +
                                             ", messageId = " +
@@ -566,16 +578,11 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
                                             closed);
          }
 
-         if (autoCommitAcks || tx == null)
-         {
-            ref.getQueue().acknowledge(ref);
-         }
-         else
-         {
-            ref.getQueue().acknowledge(tx, ref);
-         }
+         refs.add(ref);
       }
       while (ref.getMessage().getMessageID() != messageID);
+
+      acknowledge(autoCommitAcks, tx, refs);
    }
    
    public void individualAcknowledge(final boolean autoCommitAcks, final Transaction tx, final long messageID) throws Exception
@@ -602,6 +609,45 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
       }
    }
 
+   public void individualAcknowledge(final boolean autoCommitAcks, final Transaction tx, final long[] messageIDs) throws Exception
+   {
+      if (browseOnly)
+      {
+         return;
+      }
+
+      long[] sortedIDs = messageIDs.clone();
+
+      Arrays.sort(sortedIDs);
+
+      // a single pass over the delivering refs, instead of one for each message
+      List<MessageReference> refs = new ArrayList<MessageReference>(messageIDs.length);
+
+      Iterator<MessageReference> iter = deliveringRefs.iterator();
+
+      while (refs.size() < messageIDs.length && iter.hasNext())
+      {
+         MessageReference ref = iter.next();
+
+         if (Arrays.binarySearch(sortedIDs, ref.getMessage().getMessageID()) >= 0)
+         {
+            iter.remove();
+
+            refs.add(ref);
+         }
+      }
+
+      acknowledge(autoCommitAcks, tx, refs);
+
+      if (refs.size() < messageIDs.length)
+      {
+         throw new IllegalStateException("Cannot find " + (messageIDs.length - refs.size()) +
+                                         " of the " +
+                                         messageIDs.length +
+                                         " refs to ack");
+      }
+   }
+
    public MessageReference removeReferenceByID(final long messageID) throws Exception
    {
       if (browseOnly)
@@ -646,6 +692,18 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
       }
    }
 
+   public int getCredits()
+   {
+      AtomicInteger credits = availableCredits;
+
+      return credits == null ? -1 : credits.get();
+   }
+
+   public long getCreditsReceived()
+   {
+      return creditsReceived;
+   }
+
    /** To be used on tests only */
    public AtomicInteger getAvailableCredits()
    {
@@ -654,6 +712,41 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
 
    // Private --------------------------------------------------------------------------------------
 
+   /**
+    * Acknowledges the refs, in a transaction of their own when the acks are not transacted: the acks are then
+    * journaled with a single synced commit record instead of one synced record each.
+    */
+   private void acknowledge(final boolean autoCommitAcks, final Transaction tx, final List<MessageReference> refs) throws Exception
+   {
+      if (autoCommitAcks || tx == null)
+      {
+         if (refs.size() == 1)
+         {
+            MessageReference ref = refs.get(0);
+
+            ref.getQueue().acknowledge(ref);
+         }
+         else if (refs.size() > 1)
+         {
+            Transaction ackTx = new TransactionImpl(storageManager);
+
+            for (MessageReference ref : refs)
+            {
+               ref.getQueue().acknowledge(ackTx, ref);
+            }
+
+            ackTx.commit();
+         }
+      }
+      else
+      {
+         for (MessageReference ref : refs)
+         {
+            ref.getQueue().acknowledge(tx, ref);
+         }
+      }
+   }
+
    private void promptDelivery()
    {
       synchronized (lock)
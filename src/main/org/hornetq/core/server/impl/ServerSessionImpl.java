@@ -565,6 +565,18 @@ public class ServerSessionImpl implements ServerSession , FailureListener
       consumer.individualAcknowledge(autoCommitAcks, tx, messageID);
    }
 
+   public void individualAcknowledge(final long consumerID, final long[] messageIDs) throws Exception
+   {
+      ServerConsumer consumer = consumers.get(consumerID);
+
+      if (this.xa && tx == null)
+      {
+         throw new HornetQXAException(XAException.XAER_PROTO, "Invalid transaction state");
+      }
+
+      consumer.individualAcknowledge(autoCommitAcks, tx, messageIDs);
+   }
+
    public void expire(final long consumerID, final long messageID) throws Exception
    {
       MessageReference ref = consumers.get(consumerID).removeReferenceByID(messageID);
@@ -1053,43 +1065,42 @@ public class ServerSessionImpl implements ServerSession , FailureListener
 
    public void send(final ServerMessage message, final boolean direct) throws Exception
    {
-      long id = storageManager.generateUniqueID();
-
-      SimpleString address = message.getAddress();
-
-      message.setMessageID(id);
-      message.encodeMessageIDToBuffer();
+      send(message, null, direct);
+   }
 
-      if (address == null)
+   public void send(final List<ServerMessage> messages, final boolean direct) throws Exception
+   {
+      if (messages.size() == 1 || tx != null && !autoCommitSends)
       {
-         if (message.isDurable())
-         {
-            // We need to force a re-encode when the message gets persisted or when it gets reloaded
-            // it will have no address
-            message.setAddress(defaultAddress);
-         }
-         else
+         for (ServerMessage message : messages)
          {
-            // We don't want to force a re-encode when the message gets sent to the consumer
-            message.setAddressTransient(defaultAddress);
+            send(message, null, direct);
          }
+
+         return;
       }
 
-      if (message.getAddress().equals(managementAddress))
-      {
-         // It's a management message
+      // The messages are routed in a single transaction: the durable ones are stored with one synced commit record
+      // and the batch is delivered once it has been routed entirely
+      Transaction batchTx = new TransactionImpl(storageManager);
 
-         handleManagementMessage(message, direct);
-      }
-      else
+      try
       {
-         doSend(message, direct);
+         for (ServerMessage message : messages)
+         {
+            send(message, batchTx, direct);
+         }
       }
-
-      if (defaultAddress == null)
+      catch (Exception e)
       {
-         defaultAddress = address;
+         routingContext.clear();
+
+         batchTx.rollback();
+
+         throw e;
       }
+
+      batchTx.commit();
    }
 
    public void sendContinuations(final int packetSize, final long messageBodySize, final byte[] body, final boolean continues) throws Exception
@@ -1317,7 +1328,56 @@ public class ServerSessionImpl implements ServerSession , FailureListener
       }
    }
 
+   private void send(final ServerMessage message, final Transaction batchTx, final boolean direct) throws Exception
+   {
+      long id = storageManager.generateUniqueID();
+
+      SimpleString address = message.getAddress();
+
+      message.setMessageID(id);
+      message.encodeMessageIDToBuffer();
+
+      if (address == null)
+      {
+         if (message.isDurable())
+         {
+            // We need to force a re-encode when the message gets persisted or when it gets reloaded
+            // it will have no address
+            message.setAddress(defaultAddress);
+         }
+         else
+         {
+            // We don't want to force a re-encode when the message gets sent to the consumer
+            message.setAddressTransient(defaultAddress);
+         }
+      }
+
+      if (message.getAddress().equals(managementAddress))
+      {
+         // It's a management message
+
+         handleManagementMessage(message, direct);
+      }
+      else
+      {
+         doSend(message, batchTx, direct);
+      }
+
+      if (defaultAddress == null)
+      {
+         defaultAddress = address;
+      }
+   }
+
    private void doSend(final ServerMessage msg, final boolean direct) throws Exception
+   {
+      doSend(msg, null, direct);
+   }
+
+   /**
+    * @param batchTx the transaction of a batch of messages, <code>null</code> for a message sent alone
+    */
+   private void doSend(final ServerMessage msg, final Transaction batchTx, final boolean direct) throws Exception
    {
       // check the user has write access to this address.
       try
@@ -1333,7 +1393,11 @@ public class ServerSessionImpl implements ServerSession , FailureListener
          throw e;
       }
 
-      if (tx == null || autoCommitSends)
+      if (batchTx != null)
+      {
+         routingContext.setTransaction(batchTx);
+      }
+      else if (tx == null || autoCommitSends)
       {
       }
       else
@@ -272,6 +272,17 @@ public class HornetQConnectionFactory implements Serializable, Referenceable
       serverLocator.setConnectionTTL(connectionTTL);
    }
 
+   public synchronized int getConnectionPoolSize()
+   {
+      return serverLocator.getConnectionPoolSize();
+   }
+
+   public synchronized void setConnectionPoolSize(final int connectionPoolSize)
+   {
+      checkWrite();
+      serverLocator.setConnectionPoolSize(connectionPoolSize);
+   }
+
    public synchronized long getCallTimeout()
    {
       return serverLocator.getCallTimeout();
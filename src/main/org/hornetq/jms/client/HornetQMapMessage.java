@@ -411,7 +411,8 @@ public class HornetQMapMessage extends HornetQMessage implements MapMessage
    {
       super.clearBody();
 
-      map.clear();
+      // a new map, filled in place instead of copied on write as the decoded one would be
+      map = new TypedProperties();
 
       invalid = true;
    }
@@ -1014,6 +1014,8 @@ public class JMSServerControlImpl extends AbstractControl implements JMSServerCo
       obj.put("queueName", consumer.getQueue().getName().toString());
       obj.put("browseOnly", consumer.isBrowseOnly());
       obj.put("creationTime", consumer.getCreationTime());
+      obj.put("credits", consumer.getCredits());
+      obj.put("creditsReceived", consumer.getCreditsReceived());
       // JMS consumer with message filter use the queue's filter
       Filter queueFilter = consumer.getQueue().getFilter();
       if (queueFilter != null)
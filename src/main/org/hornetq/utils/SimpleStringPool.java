@@ -0,0 +1,199 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.utils;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.SimpleString;
+
+/**
+ * A bounded pool of SimpleStrings, so the names read over and over from buffers (addresses, queue names,
+ * property keys) are decoded to shared instances instead of new ones.
+ *
+ * The pool is a fixed size table indexed by the hash of the string, a string replaces the one with the same index.
+ * The strings longer than the maximum length are never pooled.
+ *
+ * It doesn't lock: the table entries are written without synchronization, which is safe since a SimpleString is
+ * immutable, at worst two threads reading the same string at the same time create two instances.
+ *
+ */
+public class SimpleStringPool
+{
+   // Constants -----------------------------------------------------
+
+   public static final int DEFAULT_CAPACITY = 2048;
+
+   // in bytes, i.e. 64 characters
+   public static final int DEFAULT_MAX_LENGTH = 128;
+
+   private static final SimpleStringPool instance = new SimpleStringPool(SimpleStringPool.DEFAULT_CAPACITY,
+                                                                         SimpleStringPool.DEFAULT_MAX_LENGTH);
+
+   // Attributes ----------------------------------------------------
+
+   private final SimpleString[] entries;
+
+   private final int mask;
+
+   private final int maxLength;
+
+   // Static --------------------------------------------------------
+
+   /**
+    * @return the pool shared by the decoders of the addresses, queue names and property keys
+    */
+   public static SimpleStringPool getInstance()
+   {
+      return SimpleStringPool.instance;
+   }
+
+   // Constructors --------------------------------------------------
+
+   /**
+    * @param capacity the number of strings pooled, rounded up to a power of 2
+    * @param maxLength the maximum length (in bytes) of the strings pooled
+    */
+   public SimpleStringPool(final int capacity, final int maxLength)
+   {
+      int size = 1;
+
+      while (size < capacity)
+      {
+         size <<= 1;
+      }
+
+      entries = new SimpleString[size];
+
+      mask = size - 1;
+
+      this.maxLength = maxLength;
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * Reads a SimpleString as written by {@link HornetQBuffer#writeSimpleString(SimpleString)}.
+    */
+   public SimpleString readSimpleString(final HornetQBuffer buffer)
+   {
+      int len = buffer.readInt();
+
+      if (len > maxLength)
+      {
+         byte[] data = new byte[len];
+         buffer.readBytes(data);
+         return new SimpleString(data);
+      }
+
+      int start = buffer.readerIndex();
+
+      // same hash as SimpleString.hashCode()
+      int hash = 0;
+      for (int i = 0; i < len; i++)
+      {
+         hash = (hash << 5) - hash + buffer.getByte(start + i);
+      }
+
+      int index = index(hash);
+
+      SimpleString pooled = entries[index];
+
+      if (pooled != null && pooled.hashCode() == hash && matches(pooled, buffer, start, len))
+      {
+         buffer.skipBytes(len);
+
+         return pooled;
+      }
+
+      byte[] data = new byte[len];
+      buffer.readBytes(data);
+      SimpleString string = new SimpleString(data);
+
+      entries[index] = string;
+
+      return string;
+   }
+
+   /**
+    * Reads a SimpleString as written by {@link HornetQBuffer#writeNullableSimpleString(SimpleString)}.
+    */
+   public SimpleString readNullableSimpleString(final HornetQBuffer buffer)
+   {
+      if (buffer.readByte() == DataConstants.NULL)
+      {
+         return null;
+      }
+      else
+      {
+         return readSimpleString(buffer);
+      }
+   }
+
+   /**
+    * @return the pooled instance equal to the string, the string itself if there is none (it is then pooled)
+    */
+   public SimpleString intern(final SimpleString string)
+   {
+      if (string == null || string.getData().length > maxLength)
+      {
+         return string;
+      }
+
+      int index = index(string.hashCode());
+
+      SimpleString pooled = entries[index];
+
+      if (string.equals(pooled))
+      {
+         return pooled;
+      }
+
+      entries[index] = string;
+
+      return string;
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   // Private -------------------------------------------------------
+
+   private int index(final int hash)
+   {
+      return (hash ^ hash >>> 16) & mask;
+   }
+
+   private static boolean matches(final SimpleString pooled, final HornetQBuffer buffer, final int start, final int len)
+   {
+      byte[] data = pooled.getData();
+
+      if (data.length != len)
+      {
+         return false;
+      }
+
+      for (int i = 0; i < len; i++)
+      {
+         if (data[i] != buffer.getByte(start + i))
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
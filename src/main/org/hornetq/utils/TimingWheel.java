@@ -0,0 +1,187 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A hashed timing wheel.
+ *
+ * <p>Elements are hashed into the slot of the tick their deadline falls in, so scheduling, rescheduling and
+ * cancelling are O(1) and {@link #expire(long)} only visits the slots of the ticks elapsed since the previous call,
+ * instead of every element.</p>
+ *
+ * <p>Deadlines are rounded up to the end of their tick. A slot also holds the elements due in later revolutions of
+ * the wheel, so the wheel should be large enough to cover the usual deadlines in a single revolution.</p>
+ *
+ * <p>Elements are compared by equality, so an element can only be scheduled once.</p>
+ *
+ */
+public class TimingWheel<T>
+{
+   // Constants -----------------------------------------------------
+
+   // Attributes ----------------------------------------------------
+
+   private final long tickDuration;
+
+   private final long startTime;
+
+   private final Set<T>[] slots;
+
+   // the tick each element is due on
+   private final Map<T, Long> ticks = new HashMap<T, Long>();
+
+   // the last tick whose slot has been expired
+   private long lastTick;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   @SuppressWarnings("unchecked")
+   public TimingWheel(final int wheelSize, final long tickDuration, final long startTime)
+   {
+      if (wheelSize <= 0)
+      {
+         throw new IllegalArgumentException("Invalid wheel size " + wheelSize);
+      }
+
+      if (tickDuration <= 0)
+      {
+         throw new IllegalArgumentException("Invalid tick duration " + tickDuration);
+      }
+
+      this.tickDuration = tickDuration;
+
+      this.startTime = startTime;
+
+      slots = new Set[wheelSize];
+
+      for (int i = 0; i < wheelSize; i++)
+      {
+         slots[i] = new HashSet<T>();
+      }
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * Schedules the element to expire at the given time, rescheduling it if it was already in the wheel.
+    */
+   public synchronized void schedule(final T element, final long deadline)
+   {
+      // the elements of a tick are all due at its end
+      long tick = (deadline - startTime + tickDuration - 1) / tickDuration;
+
+      if (tick <= lastTick)
+      {
+         tick = lastTick + 1;
+      }
+
+      Long previous = ticks.put(element, tick);
+
+      if (previous != null)
+      {
+         if (previous == tick)
+         {
+            return;
+         }
+
+         slots[slot(previous)].remove(element);
+      }
+
+      slots[slot(tick)].add(element);
+   }
+
+   /**
+    * @return true if the element was in the wheel
+    */
+   public synchronized boolean cancel(final T element)
+   {
+      Long tick = ticks.remove(element);
+
+      if (tick == null)
+      {
+         return false;
+      }
+
+      slots[slot(tick)].remove(element);
+
+      return true;
+   }
+
+   /**
+    * Removes and returns the elements whose deadline is not after the given time.
+    */
+   public synchronized List<T> expire(final long now)
+   {
+      long currentTick = (now - startTime) / tickDuration;
+
+      List<T> expired = new ArrayList<T>();
+
+      // after a long pause every slot is visited once
+      long first = Math.max(lastTick + 1, currentTick - slots.length + 1);
+
+      for (long tick = first; tick <= currentTick; tick++)
+      {
+         for (Iterator<T> iterator = slots[slot(tick)].iterator(); iterator.hasNext();)
+         {
+            T element = iterator.next();
+
+            // elements of later revolutions stay
+            if (ticks.get(element) <= currentTick)
+            {
+               iterator.remove();
+
+               ticks.remove(element);
+
+               expired.add(element);
+            }
+         }
+      }
+
+      if (currentTick > lastTick)
+      {
+         lastTick = currentTick;
+      }
+
+      return expired;
+   }
+
+   public synchronized int size()
+   {
+      return ticks.size();
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   // Private -------------------------------------------------------
+
+   private int slot(final long tick)
+   {
+      return (int)(tick % slots.length);
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
@@ -32,6 +32,7 @@ import java.util.Set;
 import java.util.Map.Entry;
 
 import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.api.core.PropertyConversionException;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.logging.Logger;
@@ -42,6 +43,9 @@ import org.hornetq.core.logging.Logger;
  * 
  * TODO - should have typed property getters and do conversions herein
  * 
+ * Once they have been encoded, decoded, copied or iterated, the properties can be read by any number of threads while
+ * they are modified. Before that they are modified in place, and must not be read and written concurrently.
+ * 
  * @author <a href="mailto:tim.fox@jboss.com">Tim Fox</a>
  * @author <a href="mailto:clebert.suconic@jboss.com">Clebert Suconic</a>
  *
@@ -52,11 +56,28 @@ public class TypedProperties
    
    private static final SimpleString HQ_PROPNAME = new SimpleString("_HQ_");
 
-   private Map<SimpleString, PropertyValue> properties;
+   // The string values are pooled apart from the keys, so the unique values (ids...) don't evict the keys.
+   // The longer values, e.g. the UUIDs, are never pooled
+   private static final SimpleStringPool VALUE_POOL = new SimpleStringPool(1024, 64);
+
+   // Copy on write: a map is never modified once it is shared, the (synchronized) writers replace it with a
+   // modified copy. A message delivered to many queues has its properties read concurrently by the filters,
+   // groups and consumers, and the readers don't lock.
+   private volatile Map<SimpleString, PropertyValue> properties;
+
+   // Set once the properties are encoded, decoded, copied or iterated: before that they must only be used by the
+   // thread filling them (e.g. the 500 entries of a map message), they are modified in place instead of copied on
+   // each put and the readers aren't protected from the writers
+   private volatile boolean shared;
 
    private volatile int size;
    
-   private boolean internalProperties;
+   private volatile boolean internalProperties;
+
+   // The properties as they were decoded, kept encoded until they are modified or iterated, so a message routed
+   // using one or two of its properties doesn't create an object for each of them.
+   // The readers look at it before properties: it is cleared after properties is set when they are decoded.
+   private volatile EncodedProperties encoded;
 
    public TypedProperties()
    {
@@ -68,13 +89,29 @@ public class TypedProperties
       // Note we don't include the attributes or anything else since they already included in the memory estimate
       // of the ServerMessage
 
+      EncodedProperties encoded = this.encoded;
+
+      if (encoded != null)
+      {
+         return size + 2 * DataConstants.SIZE_INT * encoded.offsets.length;
+      }
+
+      Map<SimpleString, PropertyValue> properties = this.properties;
+
       return properties == null ? 0 : size + 2 * DataConstants.SIZE_INT * properties.size();
    }
 
    public TypedProperties(final TypedProperties other)
    {
-      properties = other.properties == null ? null : new HashMap<SimpleString, PropertyValue>(other.properties);
-      size = other.size;
+      synchronized (other)
+      {
+         // neither is ever modified once shared, they can be shared
+         other.shared = true;
+         shared = true;
+         encoded = other.encoded;
+         properties = other.properties;
+         size = other.size;
+      }
    }
    
    public boolean hasInternalProperties()
@@ -144,17 +181,24 @@ public class TypedProperties
 
    public void putTypedProperties(final TypedProperties otherProps)
    {
-      if (otherProps == null || otherProps.properties == null)
+      if (otherProps == null)
       {
          return;
       }
 
-      checkCreateProperties();
-      Set<Entry<SimpleString, PropertyValue>> otherEntries = otherProps.properties.entrySet();
-      for (Entry<SimpleString, PropertyValue> otherEntry : otherEntries)
+      if (!otherProps.shared)
+      {
+         otherProps.markShared();
+      }
+
+      Map<SimpleString, PropertyValue> otherProperties = otherProps.getDecodedProperties();
+
+      if (otherProperties == null)
       {
-         doPutValue(otherEntry.getKey(), otherEntry.getValue());
+         return;
       }
+
+      doPutValues(otherProperties.entrySet());
    }
 
    public Object getProperty(final SimpleString key)
@@ -431,26 +475,28 @@ public class TypedProperties
 
    public boolean containsProperty(final SimpleString key)
    {
-      if (size == 0)
-      {
-         return false;
-         
-      }
-      else
-      {         
-         return properties.containsKey(key);
-      }
+      return getPropertyValue(key) != null;
    }
 
+   /**
+    * @return a snapshot of the property names, it doesn't change when the properties are modified
+    */
    public Set<SimpleString> getPropertyNames()
    {
-      if (size == 0)
+      if (!shared)
+      {
+         markShared();
+      }
+
+      Map<SimpleString, PropertyValue> properties = getDecodedProperties();
+
+      if (properties == null || properties.isEmpty())
       {
          return Collections.EMPTY_SET;         
       }
       else
       {
-         return properties.keySet();
+         return Collections.unmodifiableSet(properties.keySet());
       }
    }
 
@@ -458,108 +504,75 @@ public class TypedProperties
    {
       byte b = buffer.readByte();
 
+      properties = null;
+
+      encoded = null;
+
+      internalProperties = false;
+
+      shared = true;
+
       if (b == DataConstants.NULL)
       {
-         properties = null;
+         size = 0;
       }
       else
       {
          int numHeaders = buffer.readInt();
-         
-         properties = new HashMap<SimpleString, PropertyValue>(numHeaders);
-         size = 0;
+
+         // Only the offsets of the properties are read here, their keys and values are decoded when accessed
+         int start = buffer.readerIndex();
+
+         int[] propertyOffsets = new int[numHeaders];
 
          for (int i = 0; i < numHeaders; i++)
          {
-            int len = buffer.readInt();
-            byte[] data = new byte[len];
-            buffer.readBytes(data);
-            SimpleString key = new SimpleString(data);
-
-            byte type = buffer.readByte();
+            propertyOffsets[i] = buffer.readerIndex() - start;
 
-            PropertyValue val;
+            int len = buffer.readInt();
 
-            switch (type)
+            if (!internalProperties && isInternalProperty(buffer, buffer.readerIndex(), len))
             {
-               case NULL:
-               {
-                  val = new NullValue();
-                  doPutValue(key, val);
-                  break;
-               }
-               case CHAR:
-               {
-                  val = new CharValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BOOLEAN:
-               {
-                  val = new BooleanValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BYTE:
-               {
-                  val = new ByteValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BYTES:
-               {
-                  val = new BytesValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case SHORT:
-               {
-                  val = new ShortValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case INT:
-               {
-                  val = new IntValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case LONG:
-               {
-                  val = new LongValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case FLOAT:
-               {
-                  val = new FloatValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case DOUBLE:
-               {
-                  val = new DoubleValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case STRING:
-               {
-                  val = new StringValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               default:
-               {
-                  throw new IllegalArgumentException("Invalid type: " + type);
-               }
+               internalProperties = true;
             }
+
+            buffer.skipBytes(len);
+
+            byte type = buffer.readByte();
+
+            buffer.skipBytes(valueSize(type, buffer));
          }
+
+         byte[] bytes = new byte[buffer.readerIndex() - start];
+         buffer.getBytes(start, bytes);
+
+         size = bytes.length;
+
+         encoded = new EncodedProperties(bytes, propertyOffsets);
       }
    }
 
-   public synchronized void encode(final HornetQBuffer buffer)
+   public void encode(final HornetQBuffer buffer)
    {
-      if (properties == null)
+      if (!shared)
+      {
+         markShared();
+      }
+
+      EncodedProperties encoded = this.encoded;
+
+      Map<SimpleString, PropertyValue> properties = this.properties;
+
+      if (encoded != null)
+      {
+         // untouched since decoded
+         buffer.writeByte(DataConstants.NOT_NULL);
+
+         buffer.writeInt(encoded.offsets.length);
+
+         buffer.writeBytes(encoded.bytes);
+      }
+      else if (properties == null)
       {
          buffer.writeByte(DataConstants.NULL);
       }
@@ -583,7 +596,7 @@ public class TypedProperties
 
    public int getEncodeSize()
    {
-      if (properties == null)
+      if (properties == null && encoded == null)
       {
          return DataConstants.SIZE_BYTE;
       }
@@ -593,24 +606,37 @@ public class TypedProperties
       }
    }
 
-   public void clear()
+   public synchronized void clear()
    {
+      decodeEncoded();
+
       if (properties != null)
       {
-         properties.clear();
+         if (shared)
+         {
+            properties = new HashMap<SimpleString, PropertyValue>();
+         }
+         else
+         {
+            properties.clear();
+         }
+
+         size = 0;
       }
    }
 
    @Override
    public String toString()
    {
-      return "TypedProperties[" + properties + "]";
+      return "TypedProperties[" + getDecodedProperties() + "]";
    }
 
    // Private ------------------------------------------------------------------------------------
 
-   private void checkCreateProperties()
+   private synchronized void checkCreateProperties()
    {
+      decodeEncoded();
+
       if (properties == null)
       {
          properties = new HashMap<SimpleString, PropertyValue>();
@@ -618,13 +644,48 @@ public class TypedProperties
    }
 
    private synchronized void doPutValue(final SimpleString key, final PropertyValue value)
+   {
+      checkCreateProperties();
+
+      if (!shared)
+      {
+         putValue(properties, key, value);
+
+         return;
+      }
+
+      Map<SimpleString, PropertyValue> newProperties = new HashMap<SimpleString, PropertyValue>(properties);
+
+      putValue(newProperties, key, value);
+
+      properties = newProperties;
+   }
+
+   private synchronized void doPutValues(final Set<Entry<SimpleString, PropertyValue>> entries)
+   {
+      checkCreateProperties();
+
+      Map<SimpleString, PropertyValue> newProperties = shared ? new HashMap<SimpleString, PropertyValue>(properties)
+                                                             : properties;
+
+      for (Entry<SimpleString, PropertyValue> entry : entries)
+      {
+         putValue(newProperties, entry.getKey(), entry.getValue());
+      }
+
+      properties = newProperties;
+   }
+
+   private void putValue(final Map<SimpleString, PropertyValue> newProperties,
+                         final SimpleString key,
+                         final PropertyValue value)
    {
       if (key.startsWith(HQ_PROPNAME))
       {
          internalProperties = true;
       }
       
-      PropertyValue oldValue = properties.put(key, value);
+      PropertyValue oldValue = newProperties.put(key, value);
       if (oldValue != null)
       {
          size += value.encodeSize() - oldValue.encodeSize();
@@ -637,12 +698,28 @@ public class TypedProperties
 
    private synchronized Object doRemoveProperty(final SimpleString key)
    {
-      if (properties == null)
+      decodeEncoded();
+
+      if (properties == null || !properties.containsKey(key))
       {
          return null;
       }
 
-      PropertyValue val = properties.remove(key);
+      Map<SimpleString, PropertyValue> newProperties = shared ? new HashMap<SimpleString, PropertyValue>(properties)
+                                                             : properties;
+
+      PropertyValue val = newProperties.remove(key);
+
+      size -= SimpleString.sizeofString(key) + val.encodeSize();
+
+      properties = newProperties;
+
+      return val.getValue();
+   }
+
+   private Object doGetProperty(final SimpleString key)
+   {
+      PropertyValue val = getPropertyValue(key);
 
       if (val == null)
       {
@@ -650,33 +727,322 @@ public class TypedProperties
       }
       else
       {
-         size -= SimpleString.sizeofString(key) + val.encodeSize();
-
          return val.getValue();
       }
    }
 
-   private synchronized Object doGetProperty(final Object key)
+   private PropertyValue getPropertyValue(final SimpleString key)
    {
-      if (size == 0)
+      EncodedProperties encoded = this.encoded;
+
+      if (encoded != null)
       {
-         return null;
+         return encoded.get(key);
       }
 
-      PropertyValue val = properties.get(key);
+      Map<SimpleString, PropertyValue> properties = this.properties;
 
-      if (val == null)
+      return properties == null ? null : properties.get(key);
+   }
+
+   private synchronized void markShared()
+   {
+      shared = true;
+   }
+
+   private Map<SimpleString, PropertyValue> getDecodedProperties()
+   {
+      if (encoded != null)
       {
-         return null;
+         synchronized (this)
+         {
+            decodeEncoded();
+         }
       }
-      else
+
+      return properties;
+   }
+
+   /**
+    * Decodes all the encoded properties, before they are modified or iterated.
+    */
+   private void decodeEncoded()
+   {
+      EncodedProperties encoded = this.encoded;
+
+      if (encoded == null)
       {
-         return val.getValue();
+         return;
+      }
+
+      // properties has to be set before encoded is cleared for the readers
+      properties = encoded.decode();
+
+      this.encoded = null;
+   }
+
+   private static boolean isInternalProperty(final HornetQBuffer buffer, final int index, final int len)
+   {
+      byte[] prefix = TypedProperties.HQ_PROPNAME.getData();
+
+      if (len < prefix.length)
+      {
+         return false;
+      }
+
+      for (int i = 0; i < prefix.length; i++)
+      {
+         if (buffer.getByte(index + i) != prefix[i])
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private static int valueSize(final byte type, final HornetQBuffer buffer)
+   {
+      switch (type)
+      {
+         case NULL:
+            return 0;
+         case BOOLEAN:
+         case BYTE:
+            return DataConstants.SIZE_BYTE;
+         case CHAR:
+            return DataConstants.SIZE_CHAR;
+         case SHORT:
+            return DataConstants.SIZE_SHORT;
+         case INT:
+            return DataConstants.SIZE_INT;
+         case FLOAT:
+            return DataConstants.SIZE_FLOAT;
+         case LONG:
+            return DataConstants.SIZE_LONG;
+         case DOUBLE:
+            return DataConstants.SIZE_DOUBLE;
+         case BYTES:
+         case STRING:
+            return DataConstants.SIZE_INT + buffer.getInt(buffer.readerIndex());
+         default:
+            throw new IllegalArgumentException("Invalid type: " + type);
+      }
+   }
+
+   private static PropertyValue readValue(final HornetQBuffer buffer)
+   {
+      byte type = buffer.readByte();
+
+      switch (type)
+      {
+         case NULL:
+            return new NullValue();
+         case CHAR:
+            return new CharValue(buffer);
+         case BOOLEAN:
+            return new BooleanValue(buffer);
+         case BYTE:
+            return new ByteValue(buffer);
+         case BYTES:
+            return new BytesValue(buffer);
+         case SHORT:
+            return new ShortValue(buffer);
+         case INT:
+            return new IntValue(buffer);
+         case LONG:
+            return new LongValue(buffer);
+         case FLOAT:
+            return new FloatValue(buffer);
+         case DOUBLE:
+            return new DoubleValue(buffer);
+         case STRING:
+            return new StringValue(buffer);
+         default:
+            throw new IllegalArgumentException("Invalid type: " + type);
       }
    }
 
    // Inner classes ------------------------------------------------------------------------------
 
+   /**
+    * The encoded properties of a decoded TypedProperties, never modified once decoded.
+    */
+   private static final class EncodedProperties
+   {
+      // above that many properties, e.g. a map message body, the keys are looked up by hash instead of scanned
+      private static final int INDEX_THRESHOLD = 16;
+
+      final byte[] bytes;
+
+      // the offset of each property in bytes
+      final int[] offsets;
+
+      // the hash code of each key, as computed by SimpleString, so the keys are only compared when they match
+      final int[] hashes;
+
+      // the values already read. The values are immutable, so two threads reading the same property at the same
+      // time at worst both decode it
+      final PropertyValue[] values;
+
+      // open addressing table of (property index + 1) by key hash, null for the smaller maps
+      final int[] index;
+
+      EncodedProperties(final byte[] bytes, final int[] offsets)
+      {
+         this.bytes = bytes;
+
+         this.offsets = offsets;
+
+         hashes = new int[offsets.length];
+
+         for (int i = 0; i < offsets.length; i++)
+         {
+            int start = offsets[i] + DataConstants.SIZE_INT;
+            int end = start + readInt(offsets[i]);
+
+            int hash = 0;
+            for (int j = start; j < end; j++)
+            {
+               hash = (hash << 5) - hash + bytes[j];
+            }
+            hashes[i] = hash;
+         }
+
+         values = new PropertyValue[offsets.length];
+
+         index = offsets.length > EncodedProperties.INDEX_THRESHOLD ? createIndex(hashes) : null;
+      }
+
+      PropertyValue get(final SimpleString key)
+      {
+         byte[] data = key.getData();
+
+         int hash = key.hashCode();
+
+         if (index != null)
+         {
+            int mask = index.length - 1;
+
+            for (int slot = mix(hash) & mask; index[slot] != 0; slot = slot + 1 & mask)
+            {
+               int i = index[slot] - 1;
+
+               if (hashes[i] == hash && matches(offsets[i], data))
+               {
+                  return getValue(i, data.length);
+               }
+            }
+
+            return null;
+         }
+
+         for (int i = 0; i < offsets.length; i++)
+         {
+            if (hashes[i] == hash && matches(offsets[i], data))
+            {
+               return getValue(i, data.length);
+            }
+         }
+
+         return null;
+      }
+
+      Map<SimpleString, PropertyValue> decode()
+      {
+         HornetQBuffer buffer = HornetQBuffers.wrappedBuffer(bytes);
+
+         Map<SimpleString, PropertyValue> properties = new HashMap<SimpleString, PropertyValue>(offsets.length);
+
+         for (int i = 0; i < offsets.length; i++)
+         {
+            SimpleString key = SimpleStringPool.getInstance().readSimpleString(buffer);
+
+            PropertyValue val = TypedProperties.readValue(buffer);
+
+            properties.put(key, values[i] == null ? val : values[i]);
+         }
+
+         return properties;
+      }
+
+      private PropertyValue getValue(final int i, final int keyLength)
+      {
+         PropertyValue val = values[i];
+
+         if (val == null)
+         {
+            HornetQBuffer buffer = HornetQBuffers.wrappedBuffer(bytes);
+
+            buffer.readerIndex(offsets[i] + DataConstants.SIZE_INT + keyLength);
+
+            val = TypedProperties.readValue(buffer);
+
+            values[i] = val;
+         }
+
+         return val;
+      }
+
+      private static int[] createIndex(final int[] hashes)
+      {
+         // at most half full
+         int capacity = Integer.highestOneBit(hashes.length) << 2;
+
+         int[] index = new int[capacity];
+
+         int mask = capacity - 1;
+
+         for (int i = 0; i < hashes.length; i++)
+         {
+            int slot = mix(hashes[i]) & mask;
+
+            while (index[slot] != 0)
+            {
+               slot = slot + 1 & mask;
+            }
+
+            index[slot] = i + 1;
+         }
+
+         return index;
+      }
+
+      private static int mix(final int hash)
+      {
+         return hash ^ hash >>> 16;
+      }
+
+      private int readInt(final int offset)
+      {
+         return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16 |
+                (bytes[offset + 2] & 0xff) << 8 |
+                bytes[offset + 3] & 0xff;
+      }
+
+      private boolean matches(final int offset, final byte[] data)
+      {
+         int len = readInt(offset);
+
+         if (len != data.length)
+         {
+            return false;
+         }
+
+         int start = offset + DataConstants.SIZE_INT;
+
+         for (int i = 0; i < len; i++)
+         {
+            if (bytes[start + i] != data[i])
+            {
+               return false;
+            }
+         }
+
+         return true;
+      }
+   }
+
    private static abstract class PropertyValue
    {
       abstract Object getValue();
@@ -1041,7 +1407,7 @@ public class TypedProperties
 
       public StringValue(final HornetQBuffer buffer)
       {
-         val = buffer.readSimpleString();
+         val = TypedProperties.VALUE_POOL.readSimpleString(buffer);
       }
 
       @Override
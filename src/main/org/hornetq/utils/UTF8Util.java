@@ -44,67 +44,87 @@ public class UTF8Util
    {
       StringUtilBuffer buffer = UTF8Util.getThreadLocalBuffer();
 
-      if (str.length() > 0xffff)
+      final int stringLength = str.length();
+
+      if (stringLength > 0xffff)
       {
-         throw new IllegalArgumentException("the specified string is too long (" + str.length() + ")");
+         throw new IllegalArgumentException("the specified string is too long (" + stringLength + ")");
       }
 
-      final int len = UTF8Util.calculateUTFSize(str, buffer);
-
-      if (len > 0xffff)
+      if (stringLength > buffer.charBuffer.length)
       {
-         throw new IllegalArgumentException("the encoded string is too long (" + len + ")");
+         buffer.resizeCharBuffer(stringLength);
       }
 
-      out.writeShort((short)len);
-
-      if (len > buffer.byteBuffer.length)
+      if (stringLength > buffer.byteBuffer.length)
       {
-         buffer.resizeByteBuffer(len);
+         buffer.resizeByteBuffer(stringLength);
       }
 
-      if (len == (long)str.length())
+      str.getChars(0, stringLength, buffer.charBuffer, 0);
+
+      final char[] chars = buffer.charBuffer;
+
+      byte[] bytes = buffer.byteBuffer;
+
+      // The chars are encoded as they are sized, in a single pass.
+      // Most strings are ASCII only, they are copied as is until the first char which isn't
+      int i = 0;
+
+      while (i < stringLength)
       {
-         for (int byteLocation = 0; byteLocation < len; byteLocation++)
+         char charAtPos = chars[i];
+
+         if (charAtPos < 1 || charAtPos >= 0x7f)
          {
-            buffer.byteBuffer[byteLocation] = (byte)buffer.charBuffer[byteLocation];
+            break;
          }
-         out.writeBytes(buffer.byteBuffer, 0, len);
+
+         bytes[i++] = (byte)charAtPos;
       }
-      else
-      {
-         if (UTF8Util.isTrace)
-         {
-            // This message is too verbose for debug, that's why we are using trace here
-            UTF8Util.log.trace("Saving string with utfSize=" + len + " stringSize=" + str.length());
-         }
 
-         int stringLength = str.length();
+      int len = i;
 
-         int charCount = 0;
+      if (i < stringLength)
+      {
+         // at most 3 bytes for each of the remaining chars
+         bytes = buffer.ensureByteBuffer(len, len + 3 * (stringLength - i));
 
-         for (int i = 0; i < stringLength; i++)
+         for (; i < stringLength; i++)
          {
-            char charAtPos = buffer.charBuffer[i];
+            char charAtPos = chars[i];
             if (charAtPos >= 1 && charAtPos < 0x7f)
             {
-               buffer.byteBuffer[charCount++] = (byte)charAtPos;
+               bytes[len++] = (byte)charAtPos;
             }
             else if (charAtPos >= 0x800)
             {
-               buffer.byteBuffer[charCount++] = (byte)(0xE0 | charAtPos >> 12 & 0x0F);
-               buffer.byteBuffer[charCount++] = (byte)(0x80 | charAtPos >> 6 & 0x3F);
-               buffer.byteBuffer[charCount++] = (byte)(0x80 | charAtPos >> 0 & 0x3F);
+               bytes[len++] = (byte)(0xE0 | charAtPos >> 12 & 0x0F);
+               bytes[len++] = (byte)(0x80 | charAtPos >> 6 & 0x3F);
+               bytes[len++] = (byte)(0x80 | charAtPos >> 0 & 0x3F);
             }
             else
             {
-               buffer.byteBuffer[charCount++] = (byte)(0xC0 | charAtPos >> 6 & 0x1F);
-               buffer.byteBuffer[charCount++] = (byte)(0x80 | charAtPos >> 0 & 0x3F);
-
+               bytes[len++] = (byte)(0xC0 | charAtPos >> 6 & 0x1F);
+               bytes[len++] = (byte)(0x80 | charAtPos >> 0 & 0x3F);
             }
          }
-         out.writeBytes(buffer.byteBuffer, 0, len);
+
+         if (UTF8Util.isTrace)
+         {
+            // This message is too verbose for debug, that's why we are using trace here
+            UTF8Util.log.trace("Saving string with utfSize=" + len + " stringSize=" + stringLength);
+         }
+
+         if (len > 0xffff)
+         {
+            throw new IllegalArgumentException("the encoded string is too long (" + len + ")");
+         }
       }
+
+      out.writeShort((short)len);
+
+      out.writeBytes(bytes, 0, len);
    }
 
    public static String readUTF(final HornetQBuffer input)
@@ -129,19 +149,37 @@ public class UTF8Util
          UTF8Util.log.trace("Reading string with utfSize=" + size);
       }
 
+      final byte[] bytes = buffer.byteBuffer;
+
+      final char[] chars = buffer.charBuffer;
+
+      input.readBytes(bytes, 0, size);
+
+      // ASCII only until the first byte which isn't, one char per byte
       int count = 0;
-      int byte1, byte2, byte3;
-      int charCount = 0;
 
-      input.readBytes(buffer.byteBuffer, 0, size);
+      while (count < size)
+      {
+         byte b = bytes[count];
+
+         if (b <= 0)
+         {
+            break;
+         }
+
+         chars[count++] = (char)b;
+      }
+
+      int charCount = count;
+      int byte1, byte2, byte3;
 
       while (count < size)
       {
-         byte1 = buffer.byteBuffer[count++];
+         byte1 = bytes[count++];
 
          if (byte1 > 0 && byte1 <= 0x7F)
          {
-            buffer.charBuffer[charCount++] = (char)byte1;
+            chars[charCount++] = (char)byte1;
          }
          else
          {
@@ -150,19 +188,19 @@ public class UTF8Util
             {
                case 0xc:
                case 0xd:
-                  byte2 = buffer.byteBuffer[count++];
-                  buffer.charBuffer[charCount++] = (char)((c & 0x1F) << 6 | byte2 & 0x3F);
+                  byte2 = bytes[count++];
+                  chars[charCount++] = (char)((c & 0x1F) << 6 | byte2 & 0x3F);
                   break;
                case 0xe:
-                  byte2 = buffer.byteBuffer[count++];
-                  byte3 = buffer.byteBuffer[count++];
-                  buffer.charBuffer[charCount++] = (char)((c & 0x0F) << 12 | (byte2 & 0x3F) << 6 | (byte3 & 0x3F) << 0);
+                  byte2 = bytes[count++];
+                  byte3 = bytes[count++];
+                  chars[charCount++] = (char)((c & 0x0F) << 12 | (byte2 & 0x3F) << 6 | (byte3 & 0x3F) << 0);
                   break;
             }
          }
       }
 
-      return new String(buffer.charBuffer, 0, charCount);
+      return new String(chars, 0, charCount);
 
    }
 
@@ -200,39 +238,6 @@ public class UTF8Util
       }
    }
 
-   public static int calculateUTFSize(final String str, final StringUtilBuffer stringBuffer)
-   {
-      int calculatedLen = 0;
-
-      int stringLength = str.length();
-
-      if (stringLength > stringBuffer.charBuffer.length)
-      {
-         stringBuffer.resizeCharBuffer(stringLength);
-      }
-
-      str.getChars(0, stringLength, stringBuffer.charBuffer, 0);
-
-      for (int i = 0; i < stringLength; i++)
-      {
-         char c = stringBuffer.charBuffer[i];
-
-         if (c >= 1 && c < 0x7f)
-         {
-            calculatedLen++;
-         }
-         else if (c >= 0x800)
-         {
-            calculatedLen += 3;
-         }
-         else
-         {
-            calculatedLen += 2;
-         }
-      }
-      return calculatedLen;
-   }
-
    private static class StringUtilBuffer
    {
 
@@ -256,6 +261,21 @@ public class UTF8Util
          }
       }
 
+      /**
+       * Grows the byte buffer to newSize, keeping its first length bytes.
+       */
+      public byte[] ensureByteBuffer(final int length, final int newSize)
+      {
+         if (newSize > byteBuffer.length)
+         {
+            byte[] newBuffer = new byte[newSize];
+            System.arraycopy(byteBuffer, 0, newBuffer, 0, length);
+            byteBuffer = newBuffer;
+         }
+
+         return byteBuffer;
+      }
+
       public StringUtilBuffer()
       {
          this(1024, 1024);
@@ -14,15 +14,20 @@ package org.hornetq.tests.integration.client;
 
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
 import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.Interceptor;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.api.core.client.*;
 import org.hornetq.core.logging.Logger;
+import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.core.server.HornetQServer;
 import org.hornetq.core.server.Queue;
+import org.hornetq.spi.core.protocol.RemotingConnection;
 import org.hornetq.tests.util.ServiceTestBase;
 
 /**
@@ -252,4 +257,72 @@ public class AcknowledgeTest extends ServiceTestBase
       }
    }
 
+   public void testIndividualAcksInBatch() throws Exception
+   {
+      HornetQServer server = createServer(false);
+      try
+      {
+         server.start();
+         final AtomicInteger individualAcks = new AtomicInteger(0);
+         final AtomicInteger batchAcks = new AtomicInteger(0);
+         server.getRemotingService().addInterceptor(new Interceptor()
+         {
+            public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+            {
+               if (packet.getType() == PacketImpl.SESS_INDIVIDUAL_ACKNOWLEDGE)
+               {
+                  individualAcks.incrementAndGet();
+               }
+               else if (packet.getType() == PacketImpl.SESS_BATCH_ACKNOWLEDGE)
+               {
+                  batchAcks.incrementAndGet();
+               }
+               return true;
+            }
+         });
+         ServerLocator locator = createInVMNonHALocator();
+         ClientSessionFactory cf = locator.createSessionFactory();
+         ClientSession sendSession = cf.createSession(false, true, true);
+         ClientSession session = cf.createSession(false, true, true);
+         sendSession.createQueue(addressA, queueA, false);
+         ClientProducer cp = sendSession.createProducer(addressA);
+         int numMessages = 100;
+         for (int i = 0; i < numMessages; i++)
+         {
+            ClientMessage m = sendSession.createMessage(false);
+            // mixed priorities, the messages are acknowledged individually
+            m.setPriority((byte)(i % 2 == 0 ? 4 : 5));
+            cp.send(m);
+         }
+         ClientConsumer cc = session.createConsumer(queueA);
+         session.start();
+         for (int i = 0; i < numMessages; i++)
+         {
+            ClientMessage cm = cc.receive(5000);
+            Assert.assertNotNull(cm);
+            if (cm.getPriority() == 5)
+            {
+               cm.acknowledge();
+            }
+         }
+         Queue q = (Queue)server.getPostOffice().getBinding(queueA).getBindable();
+         // the acks are all pending on the client
+         Assert.assertEquals(numMessages, q.getDeliveringCount());
+         session.close();
+         Assert.assertEquals(0, individualAcks.get());
+         Assert.assertEquals(1, batchAcks.get());
+         // the messages not acknowledged are back on the queue
+         Assert.assertEquals(0, q.getDeliveringCount());
+         Assert.assertEquals(numMessages / 2, q.getMessageCount());
+         sendSession.close();
+      }
+      finally
+      {
+         if (server.isStarted())
+         {
+            server.stop();
+         }
+      }
+   }
+
 }
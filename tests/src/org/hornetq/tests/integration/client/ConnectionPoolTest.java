@@ -0,0 +1,250 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.client;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jms.Connection;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.TransportConfiguration;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.HornetQClient;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.api.jms.HornetQJMSClient;
+import org.hornetq.api.jms.JMSFactoryType;
+import org.hornetq.core.protocol.core.CoreRemotingConnection;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.jms.client.HornetQConnectionFactory;
+import org.hornetq.tests.util.ServiceTestBase;
+
+/**
+ * A ConnectionPoolTest
+ *
+ */
+public class ConnectionPoolTest extends ServiceTestBase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final SimpleString QUEUE = new SimpleString("ConnectionPoolTestQueue");
+
+   // Attributes ----------------------------------------------------
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   // Public --------------------------------------------------------
+
+   public void testSessionFactoriesShareConnections() throws Exception
+   {
+      locator.setConnectionPoolSize(2);
+
+      List<ClientSessionFactory> factories = new ArrayList<ClientSessionFactory>();
+
+      List<ClientSession> sessions = new ArrayList<ClientSession>();
+
+      Map<CoreRemotingConnection, Integer> factoriesPerConnection = new IdentityHashMap<CoreRemotingConnection, Integer>();
+
+      for (int i = 0; i < 6; i++)
+      {
+         ClientSessionFactory sf = locator.createSessionFactory();
+         factories.add(sf);
+
+         sessions.add(sf.createSession(false, true, true));
+
+         Integer count = factoriesPerConnection.get(sf.getConnection());
+         factoriesPerConnection.put(sf.getConnection(), count == null ? 1 : count + 1);
+      }
+
+      assertEquals(2, factoriesPerConnection.size());
+
+      for (Integer count : factoriesPerConnection.values())
+      {
+         assertEquals(3, count.intValue());
+      }
+
+      assertEquals(2, server.getRemotingService().getConnections().size());
+
+      sessions.get(0).createQueue(QUEUE, QUEUE, null, false);
+
+      // closing a session factory only closes its own sessions
+      factories.get(0).close();
+
+      assertTrue(sessions.get(0).isClosed());
+
+      for (int i = 1; i < sessions.size(); i++)
+      {
+         assertFalse(sessions.get(i).isClosed());
+      }
+
+      try
+      {
+         factories.get(0).createSession();
+
+         fail("session factory is closed");
+      }
+      catch (HornetQException e)
+      {
+         assertEquals(HornetQException.OBJECT_CLOSED, e.getCode());
+      }
+
+      for (int i = 1; i < sessions.size(); i++)
+      {
+         ClientSession session = sessions.get(i);
+
+         ClientProducer producer = session.createProducer(QUEUE);
+         ClientMessage message = session.createMessage(false);
+         message.putIntProperty("session", i);
+         producer.send(message);
+      }
+
+      ClientSession session = sessions.get(1);
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+      session.start();
+
+      // the sends of different connections are not ordered
+      Set<Integer> received = new HashSet<Integer>();
+
+      for (int i = 1; i < sessions.size(); i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+         assertNotNull(message);
+         assertTrue(received.add(message.getIntProperty("session")));
+         message.acknowledge();
+      }
+
+      assertNull(consumer.receiveImmediate());
+
+      // the next session factory goes to the connection with the fewest session factories
+      ClientSessionFactory sf = locator.createSessionFactory();
+
+      assertSame(factories.get(0).getConnection(), sf.getConnection());
+
+      assertEquals(2, server.getRemotingService().getConnections().size());
+
+      for (ClientSessionFactory factory : factories)
+      {
+         factory.close();
+      }
+
+      sf.close();
+   }
+
+   public void testJMSConnectionsShareConnections() throws Exception
+   {
+      HornetQConnectionFactory cf = HornetQJMSClient.createConnectionFactoryWithoutHA(JMSFactoryType.CF,
+                                                                                     new TransportConfiguration(ServiceTestBase.NETTY_CONNECTOR_FACTORY));
+      cf.setConnectionPoolSize(1);
+
+      SimpleString jmsQueue = new SimpleString("jms.queue." + QUEUE);
+      server.createQueue(jmsQueue, jmsQueue, null, false, false);
+
+      Queue queue = HornetQJMSClient.createQueue(QUEUE.toString());
+
+      List<Connection> connections = new ArrayList<Connection>();
+
+      try
+      {
+         for (int i = 0; i < 5; i++)
+         {
+            Connection connection = cf.createConnection();
+            connections.add(connection);
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(queue);
+            producer.send(session.createTextMessage("message" + i));
+         }
+
+         assertEquals(1, server.getRemotingService().getConnections().size());
+
+         connections.remove(0).close();
+
+         Connection connection = connections.get(0);
+         Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+         MessageConsumer consumer = session.createConsumer(queue);
+         connection.start();
+
+         for (int i = 0; i < 5; i++)
+         {
+            TextMessage message = (TextMessage)consumer.receive(5000);
+            assertNotNull(message);
+            assertEquals("message" + i, message.getText());
+         }
+
+         assertNull(consumer.receiveNoWait());
+      }
+      finally
+      {
+         for (Connection connection : connections)
+         {
+            connection.close();
+         }
+
+         cf.close();
+      }
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      server = createServer(false, createDefaultConfig(true));
+      server.start();
+
+      locator = HornetQClient.createServerLocatorWithoutHA(new TransportConfiguration(ServiceTestBase.NETTY_CONNECTOR_FACTORY));
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      locator.close();
+
+      server.stop();
+
+      server = null;
+
+      super.tearDown();
+   }
+
+   // Private -------------------------------------------------------
+
+   // Inner classes -------------------------------------------------
+
+}
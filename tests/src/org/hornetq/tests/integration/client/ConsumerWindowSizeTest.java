@@ -30,6 +30,7 @@ import org.hornetq.api.core.client.ClientSessionFactory;
 import org.hornetq.api.core.client.MessageHandler;
 import org.hornetq.api.core.client.ServerLocator;
 import org.hornetq.core.client.impl.ClientConsumerInternal;
+import org.hornetq.core.client.impl.ConsumerWindowTuner;
 import org.hornetq.core.logging.Logger;
 import org.hornetq.core.postoffice.Binding;
 import org.hornetq.core.postoffice.Bindings;
@@ -398,6 +399,59 @@ public class ConsumerWindowSizeTest extends ServiceTestBase
       }
    }
 
+   public void testAdaptiveWindowSize() throws Exception
+   {
+      HornetQServer server = createServer(false, isNetty());
+      locator.setBlockOnNonDurableSend(false);
+      try
+      {
+         server.start();
+         int numMessages = 400;
+         int windowSize = 100 * getMessageEncodeSize(addressA);
+         locator.setConsumerWindowSize(windowSize);
+         locator.setAdaptiveConsumerWindowSize(true);
+         ClientSessionFactory cf = locator.createSessionFactory();
+         ClientSession session = cf.createSession(false, true, true);
+         session.createQueue(addressA, queueA, false);
+         ClientProducer producer = session.createProducer(addressA);
+         ClientConsumer consumer = session.createConsumer(queueA);
+
+         for (int i = 0; i < numMessages; i++)
+         {
+            producer.send(session.createMessage(false));
+         }
+
+         session.start();
+
+         for (int i = 0; i < numMessages; i++)
+         {
+            ClientMessage m = consumer.receive(5000);
+            Assert.assertNotNull(m);
+            m.acknowledge();
+         }
+
+         Assert.assertNull(consumer.receiveImmediate());
+
+         // how the window is resized depends on the timings, see ConsumerWindowTunerTest, it stays within its bounds
+         int clientWindowSize = ((ClientConsumerInternal)consumer).getClientWindowSize();
+         Assert.assertTrue("client window size " + clientWindowSize,
+                           clientWindowSize >= windowSize / ConsumerWindowTuner.RANGE / 2);
+         Assert.assertTrue("client window size " + clientWindowSize,
+                           clientWindowSize <= windowSize * ConsumerWindowTuner.RANGE / 2);
+
+         session.close();
+
+         Assert.assertEquals(0, getMessageCount(server, queueA.toString()));
+      }
+      finally
+      {
+         if (server.isStarted())
+         {
+            server.stop();
+         }
+      }
+   }
+
    public void testSlowConsumerBufferingOne() throws Exception
    {
       HornetQServer server = createServer(false, isNetty());
@@ -20,6 +20,7 @@ import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.core.server.HornetQServer;
 import org.hornetq.tests.util.RandomUtil;
 import org.hornetq.tests.util.ServiceTestBase;
+import org.hornetq.tests.util.UnitTestCase;
 import org.hornetq.utils.DataConstants;
 
 public class InVMNonPersistentMessageBufferTest extends ServiceTestBase
@@ -199,6 +200,49 @@ public class InVMNonPersistentMessageBufferTest extends ServiceTestBase
 
    }
 
+   public void testReceivedMessageBodyCanGrow() throws Exception
+   {
+      // the bigger messages arrive in frames that fill the read buffer and are decoded in place
+      for (int size : new int[] { 100, 1000, 10000, 30000, 60000 })
+      {
+         ClientMessage message = session.createMessage(false);
+
+         byte[] body = RandomUtil.randomBytes(size);
+
+         message.getBodyBuffer().writeBytes(body);
+
+         ClientMessage received = sendAndReceive(message);
+
+         Assert.assertNotNull(received);
+
+         Assert.assertEquals(size, received.getBodySize());
+
+         byte[] more = RandomUtil.randomBytes(40000);
+
+         received.getBodyBuffer().writeBytes(more);
+
+         ClientMessage receivedAgain = sendAndReceive(received);
+
+         Assert.assertNotNull(receivedAgain);
+
+         Assert.assertEquals(size + more.length, receivedAgain.getBodySize());
+
+         byte[] bytes = new byte[size];
+
+         receivedAgain.getBodyBuffer().readBytes(bytes);
+
+         UnitTestCase.assertEqualsByteArrays(body, bytes);
+
+         bytes = new byte[more.length];
+
+         receivedAgain.getBodyBuffer().readBytes(bytes);
+
+         UnitTestCase.assertEqualsByteArrays(more, bytes);
+
+         Assert.assertFalse(receivedAgain.getBodyBuffer().readable());
+      }
+   }
+
    protected ServerLocator createFactory() throws Exception
    {
       if (isNetty())
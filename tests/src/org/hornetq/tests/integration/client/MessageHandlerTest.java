@@ -12,8 +12,12 @@
  */
 package org.hornetq.tests.integration.client;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
@@ -407,4 +411,85 @@ public class MessageHandlerTest extends ServiceTestBase
       Assert.assertNull(consumer.getLastException());
       session.close();
    }
+
+   public void testRecycleMessages() throws Exception
+   {
+      locator.setRecycleMessages(true);
+
+      ClientSessionFactory sf = locator.createSessionFactory();
+
+      ClientSession session = sf.createSession(false, true, true);
+
+      session.createQueue(QUEUE, QUEUE, null, false);
+
+      ClientProducer producer = session.createProducer(QUEUE);
+
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+
+      final int numMessages = 100;
+
+      final Semaphore handled = new Semaphore(0);
+
+      final Map<ClientMessage, Boolean> instances = new IdentityHashMap<ClientMessage, Boolean>();
+
+      final AtomicInteger errors = new AtomicInteger(0);
+
+      consumer.setMessageHandler(new MessageHandler()
+      {
+         int expected = 0;
+
+         public void onMessage(final ClientMessage message)
+         {
+            try
+            {
+               instances.put(message, true);
+
+               // nothing is left from the message a recycled instance was
+               if (message.getIntProperty("i") != expected ||
+                   message.containsProperty("even") != (expected % 2 == 0) ||
+                   message.containsProperty("handled") ||
+                   !message.getBodyBuffer().readString().equals("m" + expected))
+               {
+                  errors.incrementAndGet();
+               }
+
+               message.putBooleanProperty("handled", true);
+
+               message.acknowledge();
+            }
+            catch (Exception e)
+            {
+               errors.incrementAndGet();
+            }
+
+            expected++;
+
+            handled.release();
+         }
+      });
+
+      session.start();
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = session.createMessage(false);
+         message.putIntProperty("i", i);
+         if (i % 2 == 0)
+         {
+            message.putBooleanProperty("even", true);
+         }
+         message.getBodyBuffer().writeString("m" + i);
+         producer.send(message);
+
+         Assert.assertTrue(handled.tryAcquire(5, TimeUnit.SECONDS));
+      }
+
+      Assert.assertEquals(0, errors.get());
+      Assert.assertNull(consumer.getLastException());
+
+      // the messages are received one at a time, most are decoded into a recycled one
+      Assert.assertTrue("instances: " + instances.size(), instances.size() < numMessages / 2);
+
+      session.close();
+   }
 }
@@ -39,6 +39,8 @@ import org.hornetq.api.core.client.ClientSession;
 import org.hornetq.api.core.client.ClientSessionFactory;
 import org.hornetq.api.core.client.MessageHandler;
 import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.api.core.management.QueueControl;
+import org.hornetq.api.core.management.ResourceNames;
 import org.hornetq.core.config.Configuration;
 import org.hornetq.core.config.DivertConfiguration;
 import org.hornetq.core.journal.IOAsyncTask;
@@ -1693,6 +1695,98 @@ public class PagingTest extends ServiceTestBase
 
    }
 
+   public void testBrowsePagedMessages() throws Exception
+   {
+      clearData();
+
+      Configuration config = createDefaultConfig();
+
+      HornetQServer server = createServer(true,
+                                          config,
+                                          PagingTest.PAGE_SIZE,
+                                          PagingTest.PAGE_MAX,
+                                          new HashMap<String, AddressSettings>());
+
+      server.start();
+
+      final int numberOfMessages = 500;
+
+      try
+      {
+         locator.setBlockOnNonDurableSend(true);
+         locator.setBlockOnDurableSend(true);
+         locator.setBlockOnAcknowledge(true);
+
+         ClientSessionFactory sf = locator.createSessionFactory();
+         ClientSession session = sf.createSession(null, null, false, true, true, false, 0);
+
+         session.createQueue(PagingTest.ADDRESS, PagingTest.ADDRESS, null, true);
+
+         ClientProducer producer = session.createProducer(PagingTest.ADDRESS);
+
+         for (int i = 0; i < numberOfMessages; i++)
+         {
+            ClientMessage message = session.createMessage(true);
+            message.getBodyBuffer().writeBytes(new byte[1024]);
+            message.putIntProperty(new SimpleString("id"), i);
+            producer.send(message);
+         }
+
+         PagingStore store = server.getPagingManager().getPageStore(PagingTest.ADDRESS);
+
+         Assert.assertTrue(store.isPaging());
+
+         QueueControl queueControl = (QueueControl)server.getManagementService()
+                                                         .getResource(ResourceNames.CORE_QUEUE + PagingTest.ADDRESS);
+
+         Assert.assertEquals(numberOfMessages, queueControl.countMessages("id >= 0"));
+         Assert.assertEquals(100, queueControl.countMessages("id >= 400"));
+         Assert.assertEquals(10, queueControl.listMessages("id < 10").length);
+
+         session.start();
+
+         ClientConsumer browser = session.createConsumer(PagingTest.ADDRESS, true);
+
+         for (int i = 0; i < numberOfMessages; i++)
+         {
+            ClientMessage message = browser.receive(PagingTest.RECEIVE_TIMEOUT);
+            Assert.assertNotNull(message);
+            Assert.assertEquals(i, message.getIntProperty("id").intValue());
+         }
+
+         Assert.assertNull(browser.receiveImmediate());
+
+         browser.close();
+
+         // browsing didn't depage or remove anything
+         Assert.assertTrue(store.isPaging());
+
+         ClientConsumer consumer = session.createConsumer(PagingTest.ADDRESS);
+
+         for (int i = 0; i < numberOfMessages; i++)
+         {
+            ClientMessage message = consumer.receive(PagingTest.RECEIVE_TIMEOUT);
+            Assert.assertNotNull(message);
+            Assert.assertEquals(i, message.getIntProperty("id").intValue());
+            message.acknowledge();
+         }
+
+         Assert.assertNull(consumer.receiveImmediate());
+
+         session.close();
+      }
+      finally
+      {
+         try
+         {
+            server.stop();
+         }
+         catch (Throwable ignored)
+         {
+         }
+      }
+   }
+
    public void testRollbackOnSend() throws Exception
    {
       clearData();
@@ -12,19 +12,24 @@
  */
 package org.hornetq.tests.integration.client;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
 import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.Interceptor;
+import org.hornetq.api.core.Message;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.api.core.client.*;
 import org.hornetq.core.logging.Logger;
 import org.hornetq.core.protocol.core.Packet;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.server.Queue;
 import org.hornetq.spi.core.protocol.RemotingConnection;
 import org.hornetq.tests.util.ServiceTestBase;
 
@@ -87,4 +92,190 @@ public class ProducerTest extends ServiceTestBase
       locator.close();
    }
 
+   public void testSendBatch() throws Exception
+   {
+      final AtomicInteger sends = new AtomicInteger(0);
+      final AtomicInteger batches = new AtomicInteger(0);
+      server.getRemotingService().addInterceptor(new Interceptor()
+      {
+         public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+         {
+            if (packet.getType() == PacketImpl.SESS_SEND)
+            {
+               sends.incrementAndGet();
+            }
+            else if (packet.getType() == PacketImpl.SESS_SEND_BATCH)
+            {
+               batches.incrementAndGet();
+            }
+            return true;
+         }
+      });
+      ServerLocator locator = createInVMNonHALocator();
+      ClientSessionFactory cf = locator.createSessionFactory();
+      ClientSession session = cf.createSession(false, true, true);
+      session.createQueue(QUEUE, QUEUE, null, false);
+      ClientProducer producer = session.createProducer(QUEUE);
+      int numMessages = 100;
+      List<ClientMessage> messages = new ArrayList<ClientMessage>();
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = session.createMessage(i % 2 == 0);
+         message.putIntProperty("i", i);
+         message.getBodyBuffer().writeString("m" + i);
+         messages.add(message);
+      }
+      producer.send(messages);
+      Assert.assertEquals(0, sends.get());
+      Assert.assertEquals(1, batches.get());
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+      session.start();
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+         Assert.assertNotNull(message);
+         Assert.assertEquals(i, message.getIntProperty("i").intValue());
+         Assert.assertEquals(i % 2 == 0, message.isDurable());
+         Assert.assertEquals(QUEUE, message.getAddress());
+         Assert.assertEquals("m" + i, message.getBodyBuffer().readString());
+         message.acknowledge();
+      }
+      Assert.assertNull(consumer.receiveImmediate());
+      session.close();
+      locator.close();
+   }
+
+   public void testSendBatchWithLargeMessage() throws Exception
+   {
+      final AtomicInteger batches = new AtomicInteger(0);
+      server.getRemotingService().addInterceptor(new Interceptor()
+      {
+         public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+         {
+            if (packet.getType() == PacketImpl.SESS_SEND_BATCH)
+            {
+               batches.incrementAndGet();
+            }
+            return true;
+         }
+      });
+      ServerLocator locator = createInVMNonHALocator();
+      locator.setMinLargeMessageSize(1024);
+      ClientSessionFactory cf = locator.createSessionFactory();
+      ClientSession session = cf.createSession(false, true, true);
+      session.createQueue(QUEUE, QUEUE, null, false);
+      ClientProducer producer = session.createProducer(QUEUE);
+      List<ClientMessage> messages = new ArrayList<ClientMessage>();
+      for (int i = 0; i < 11; i++)
+      {
+         ClientMessage message = session.createMessage(false);
+         message.putIntProperty("i", i);
+         if (i == 5)
+         {
+            message.getBodyBuffer().writeBytes(new byte[2048]);
+         }
+         messages.add(message);
+      }
+      producer.send(messages);
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+      session.start();
+      for (int i = 0; i < 11; i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+         Assert.assertNotNull(message);
+         Assert.assertEquals(i, message.getIntProperty("i").intValue());
+         Assert.assertEquals(i == 5 ? 2048 : 0, message.getBodySize());
+         message.acknowledge();
+      }
+      // the large message is sent on its own, between two batches
+      Assert.assertEquals(2, batches.get());
+      session.close();
+      locator.close();
+   }
+
+   public void testSendBatchSplit() throws Exception
+   {
+      final AtomicInteger batches = new AtomicInteger(0);
+      final AtomicInteger maxBatchSize = new AtomicInteger(0);
+      server.getRemotingService().addInterceptor(new Interceptor()
+      {
+         public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+         {
+            if (packet.getType() == PacketImpl.SESS_SEND_BATCH)
+            {
+               batches.incrementAndGet();
+               maxBatchSize.set(Math.max(maxBatchSize.get(), packet.getPacketSize()));
+            }
+            return true;
+         }
+      });
+      ServerLocator locator = createInVMNonHALocator();
+      locator.setMinLargeMessageSize(1024);
+      ClientSessionFactory cf = locator.createSessionFactory();
+      ClientSession session = cf.createSession(false, true, true);
+      session.createQueue(QUEUE, QUEUE, null, false);
+      ClientProducer producer = session.createProducer(QUEUE);
+      List<ClientMessage> messages = new ArrayList<ClientMessage>();
+      for (int i = 0; i < 100; i++)
+      {
+         ClientMessage message = session.createMessage(false);
+         message.putIntProperty("i", i);
+         message.getBodyBuffer().writeBytes(new byte[100]);
+         messages.add(message);
+      }
+      producer.send(messages);
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+      session.start();
+      for (int i = 0; i < 100; i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+         Assert.assertNotNull(message);
+         Assert.assertEquals(i, message.getIntProperty("i").intValue());
+         message.acknowledge();
+      }
+      Assert.assertNull(consumer.receiveImmediate());
+      // the batch is split once it reaches the size of a large message chunk
+      Assert.assertTrue(batches.get() > 1);
+      Assert.assertTrue("" + maxBatchSize.get(), maxBatchSize.get() < 2 * 1024);
+      session.close();
+      locator.close();
+   }
+
+   public void testSendBatchWithDuplicate() throws Exception
+   {
+      ServerLocator locator = createInVMNonHALocator();
+      locator.setBlockOnDurableSend(true);
+      ClientSessionFactory cf = locator.createSessionFactory();
+      ClientSession session = cf.createSession(false, true, true);
+      session.createQueue(QUEUE, QUEUE, null, false);
+      ClientProducer producer = session.createProducer(QUEUE);
+      ClientMessage message = session.createMessage(true);
+      message.putStringProperty(Message.HDR_DUPLICATE_DETECTION_ID, new SimpleString("dup"));
+      producer.send(message);
+      List<ClientMessage> messages = new ArrayList<ClientMessage>();
+      for (int i = 0; i < 3; i++)
+      {
+         message = session.createMessage(true);
+         if (i == 1)
+         {
+            message.putStringProperty(Message.HDR_DUPLICATE_DETECTION_ID, new SimpleString("dup"));
+         }
+         messages.add(message);
+      }
+      try
+      {
+         producer.send(messages);
+         Assert.fail("the batch should be rejected");
+      }
+      catch (HornetQException e)
+      {
+         Assert.assertEquals(HornetQException.DUPLICATE_ID_REJECTED, e.getCode());
+      }
+      // none of the messages of the batch is routed
+      Queue queue = (Queue)server.getPostOffice().getBinding(QUEUE).getBindable();
+      Assert.assertEquals(1, queue.getMessageCount());
+      session.close();
+      locator.close();
+   }
+
 }
@@ -15,6 +15,7 @@ package org.hornetq.tests.integration.client;
 
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
@@ -113,6 +114,68 @@ public class SessionSendAcknowledgementHandlerTest extends ServiceTestBase
       testSendAcknowledgements(1024);
    }
 
+   public void testPipelinedDurableSends() throws Exception
+   {
+      server.stop();
+      server = createServer(true);
+      server.start();
+
+      final int windowSize = 4096;
+
+      final int bodySize = 100;
+
+      ServerLocator locator = createInVMNonHALocator();
+
+      locator.setConfirmationWindowSize(1024);
+      locator.setBlockOnDurableSend(false);
+      locator.setSendAcknowledgementWindowSize(windowSize);
+
+      ClientSessionFactory csf = locator.createSessionFactory();
+      ClientSession session = csf.createSession(null, null, false, true, true, false, 1);
+
+      session.createQueue(address, queueName, true);
+
+      ClientProducer prod = session.createProducer(address);
+
+      final int numMessages = 1000;
+
+      final CountDownLatch latch = new CountDownLatch(numMessages);
+
+      final AtomicInteger acknowledged = new AtomicInteger(0);
+
+      session.setSendAcknowledgementHandler(new SendAcknowledgementHandler()
+      {
+         public void sendAcknowledged(final Message message)
+         {
+            acknowledged.incrementAndGet();
+            latch.countDown();
+         }
+      });
+
+      int maxPending = 0;
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage msg = session.createMessage(true);
+         msg.getBodyBuffer().writeBytes(new byte[bodySize]);
+
+         prod.send(msg);
+
+         maxPending = Math.max(maxPending, i + 1 - acknowledged.get());
+      }
+
+      Assert.assertTrue(latch.await(5000, TimeUnit.MILLISECONDS));
+
+      // the producer waited for the acknowledgements instead of sending everything
+      Assert.assertTrue("Too many pending sends: " + maxPending, maxPending <= windowSize / bodySize + 1);
+
+      session.close();
+
+      locator.close();
+
+      Assert.assertEquals(numMessages, server.locateQueue(queueName).getMessageCount());
+   }
+
    public void testSendAcknowledgements(int windowSize) throws Exception
    {
       ServerLocator locator = createInVMNonHALocator();
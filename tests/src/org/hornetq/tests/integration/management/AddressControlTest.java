@@ -22,6 +22,7 @@ import junit.framework.Assert;
 
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.api.core.TransportConfiguration;
+import org.hornetq.api.core.client.ClientConsumer;
 import org.hornetq.api.core.client.ClientMessage;
 import org.hornetq.api.core.client.ClientProducer;
 import org.hornetq.api.core.client.ClientSession;
@@ -266,6 +267,61 @@ public class AddressControlTest extends ManagementTestBase
       Assert.assertEquals(2, addressControl.getNumberOfPages());
    }
 
+   public void testGetNumberOfReclaimedPages() throws Exception
+   {
+      session.close();
+      server.stop();
+
+      SimpleString address = RandomUtil.randomSimpleString();
+
+      AddressSettings addressSettings = new AddressSettings();
+      addressSettings.setPageSizeBytes(1024);
+      addressSettings.setMaxSizeBytes(10 * 1024);
+      int NUMBER_OF_MESSAGES = 50;
+
+      server.getAddressSettingsRepository().addMatch(address.toString(), addressSettings);
+      server.start();
+
+      ServerLocator locator = HornetQClient.createServerLocatorWithoutHA(new TransportConfiguration(UnitTestCase.INVM_CONNECTOR_FACTORY));
+      ClientSessionFactory sf = locator.createSessionFactory();
+      session = sf.createSession(false, true, false);
+      session.start();
+      session.createQueue(address, address, true);
+
+      ClientProducer producer = session.createProducer(address);
+
+      for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+      {
+         ClientMessage msg = session.createMessage(true);
+         msg.getBodyBuffer().writeBytes(new byte[512]);
+         producer.send(msg);
+      }
+      session.commit();
+
+      AddressControl addressControl = createManagementControl(address);
+      Assert.assertTrue(addressControl.getNumberOfPages() > 1);
+      Assert.assertEquals(0, addressControl.getNumberOfReclaimedPages());
+
+      ClientConsumer consumer = session.createConsumer(address);
+      for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+      {
+         ClientMessage msg = consumer.receive(5000);
+         Assert.assertNotNull(msg);
+         msg.acknowledge();
+      }
+      session.commit();
+      consumer.close();
+
+      long timeout = System.currentTimeMillis() + 5000;
+      while (addressControl.getNumberOfReclaimedPages() == 0 && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(100);
+      }
+
+      Assert.assertTrue(addressControl.getNumberOfReclaimedPages() > 0);
+      Assert.assertEquals(0, addressControl.getNumberOfPagesPendingReclaim());
+   }
+
    public void testGetNumberOfBytesPerPage() throws Exception
    {
       SimpleString address = RandomUtil.randomSimpleString();
@@ -165,6 +165,21 @@ public class HornetQServerControlUsingCoreTest extends HornetQServerControlTest
             return (Integer)proxy.retrieveAttributeValue("connectionCount");
          }
 
+         public long getExpiredConnectionCount()
+         {
+            return (Long)proxy.retrieveAttributeValue("expiredConnectionCount", Long.class);
+         }
+
+         public int getLastConnectionCheckCount()
+         {
+            return (Integer)proxy.retrieveAttributeValue("lastConnectionCheckCount");
+         }
+
+         public long getLastConnectionCheckDuration()
+         {
+            return (Long)proxy.retrieveAttributeValue("lastConnectionCheckDuration", Long.class);
+         }
+
          public long getConnectionTTLOverride()
          {
             return (Long)proxy.retrieveAttributeValue("connectionTTLOverride", Long.class);
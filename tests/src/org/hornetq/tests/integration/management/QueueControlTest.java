@@ -220,6 +220,8 @@ public class QueueControlTest extends ManagementTestBase
       JSONArray obj = new JSONArray(queueControl.listConsumersAsJSON());
 
       assertEquals(1, obj.length());
+      assertTrue(obj.getJSONObject(0).has("credits"));
+      assertTrue(obj.getJSONObject(0).has("creditsReceived"));
 
       consumer.close();
       Assert.assertEquals(0, queueControl.getConsumerCount());
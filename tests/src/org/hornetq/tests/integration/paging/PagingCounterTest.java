@@ -248,6 +248,67 @@ public class PagingCounterTest extends ServiceTestBase
 
    }
 
+   public void testCheckpointOnRestart() throws Exception
+   {
+      Queue queue = server.createQueue(new SimpleString("A1"), new SimpleString("A1"), null, true, false);
+
+      PageSubscriptionCounter counter = locateCounter(queue);
+
+      StorageManager storage = server.getStorageManager();
+
+      for (int i = 0; i < 500; i++)
+      {
+         counter.increment(null, 1);
+      }
+
+      storage.waitOnOperations();
+
+      assertEquals(500, counter.getValue());
+
+      // below the flush threshold, the increments are kept as records until the next checkpoint
+      assertEquals(500, ((PageSubscriptionCounterImpl)counter).getIncrementRecordsSize());
+
+      sl.close();
+
+      server.stop();
+
+      server = newHornetQServer();
+
+      server.start();
+
+      queue = server.locateQueue(new SimpleString("A1"));
+
+      assertNotNull(queue);
+
+      counter = locateCounter(queue);
+
+      assertEquals(500, counter.getValue());
+
+      long timeout = System.currentTimeMillis() + 5000;
+      while (((PageSubscriptionCounterImpl)counter).getIncrementRecordsSize() > 0 && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(10);
+      }
+
+      assertEquals(0, ((PageSubscriptionCounterImpl)counter).getIncrementRecordsSize());
+
+      counter.increment(null, 1);
+
+      server.getStorageManager().waitOnOperations();
+
+      server.stop();
+
+      server = newHornetQServer();
+
+      server.start();
+
+      queue = server.locateQueue(new SimpleString("A1"));
+
+      counter = locateCounter(queue);
+
+      assertEquals(501, counter.getValue());
+   }
+
    /**
     * @param queue
     * @return
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.remoting;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.core.remoting.impl.netty.TransportConstants;
+
+/**
+ * Runs the BatchDelayTest scenarios with adaptive batching instead of a fixed batch-delay
+ *
+ */
+public class AdaptiveBatchingTest extends BatchDelayTest
+{
+
+   // Constants -----------------------------------------------------
+
+   // Attributes ----------------------------------------------------
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   // Public --------------------------------------------------------
+
+   public void testNoFixedDelay() throws Exception
+   {
+      ClientSessionFactory sf = createSessionFactory();
+
+      ClientSession session = sf.createSession();
+
+      final String foo = "foo";
+
+      session.createQueue(foo, foo);
+
+      ClientProducer prod = session.createProducer(foo);
+
+      ClientConsumer cons = session.createConsumer(foo);
+
+      session.start();
+
+      for (int i = 0; i < 10; i++)
+      {
+         long start = System.currentTimeMillis();
+
+         prod.send(session.createMessage(false));
+
+         ClientMessage msg = cons.receive(10000);
+
+         assertNotNull(msg);
+
+         msg.acknowledge();
+
+         // batched deliveries are flushed as soon as the flusher runs, not after a timer
+         assertTrue(System.currentTimeMillis() - start < 500);
+      }
+
+      sf.close();
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   @Override
+   protected Map<String, Object> createTransportParams()
+   {
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put(TransportConstants.ADAPTIVE_BATCHING_PROP_NAME, true);
+      return params;
+   }
+
+   // Private -------------------------------------------------------
+
+   // Inner classes -------------------------------------------------
+
+}
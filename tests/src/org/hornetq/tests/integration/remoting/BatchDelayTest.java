@@ -58,15 +58,20 @@ public class BatchDelayTest extends ServiceTestBase
 
    // Protected -----------------------------------------------------
 
+   protected Map<String, Object> createTransportParams()
+   {
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put(TransportConstants.BATCH_DELAY, DELAY);
+      return params;
+   }
+
    @Override
    protected void setUp() throws Exception
    {
       super.setUp();
 
-      Map<String, Object> params = new HashMap<String, Object>();
-      params.put(TransportConstants.BATCH_DELAY, DELAY);
-
-      TransportConfiguration tc = new TransportConfiguration(NettyAcceptorFactory.class.getName(), params);
+      TransportConfiguration tc = new TransportConfiguration(NettyAcceptorFactory.class.getName(),
+                                                             createTransportParams());
 
       Configuration config = createBasicConfig();
       config.getAcceptorConfigurations().add(tc);
@@ -88,9 +93,8 @@ public class BatchDelayTest extends ServiceTestBase
 
    protected ClientSessionFactory createSessionFactory() throws Exception
    {
-      Map<String, Object> params = new HashMap<String, Object>();
-      params.put(TransportConstants.BATCH_DELAY, DELAY);
-      ServerLocator locator = HornetQClient.createServerLocatorWithoutHA(new TransportConfiguration(ServiceTestBase.NETTY_CONNECTOR_FACTORY, params));
+      ServerLocator locator = HornetQClient.createServerLocatorWithoutHA(new TransportConfiguration(ServiceTestBase.NETTY_CONNECTOR_FACTORY,
+                                                                                                   createTransportParams()));
 
       ClientSessionFactory sf = locator.createSessionFactory();
 
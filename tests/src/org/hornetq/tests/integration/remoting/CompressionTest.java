@@ -0,0 +1,284 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.remoting;
+
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hornetq.api.core.TransportConfiguration;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.HornetQClient;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.remoting.impl.netty.NettyAcceptorFactory;
+import org.hornetq.core.remoting.impl.netty.TransportConstants;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.tests.util.ServiceTestBase;
+
+/**
+ * A CompressionTest
+ *
+ */
+public class CompressionTest extends ServiceTestBase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final String QUEUE = "CompressionTestQueue";
+
+   // Attributes ----------------------------------------------------
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   // Public --------------------------------------------------------
+
+   public void testCompressedMessages() throws Exception
+   {
+      startServer(true);
+
+      internalTestSendReceive(createSessionFactory(true));
+   }
+
+   public void testRefusedByAcceptor() throws Exception
+   {
+      startServer(false);
+
+      internalTestSendReceive(createSessionFactory(true));
+   }
+
+   public void testUncompressedClientOnCompressingAcceptor() throws Exception
+   {
+      startServer(true);
+
+      internalTestSendReceive(createSessionFactory(false));
+   }
+
+   public void testCompressedLargeMessage() throws Exception
+   {
+      startServer(true);
+
+      locator = createLocator(true);
+      locator.setMinLargeMessageSize(10 * 1024);
+
+      ClientSessionFactory sf = locator.createSessionFactory();
+
+      ClientSession session = sf.createSession();
+
+      session.createQueue(QUEUE, QUEUE, null, false);
+
+      ClientProducer producer = session.createProducer(QUEUE);
+
+      final int size = 1024 * 1024;
+
+      ClientMessage message = session.createMessage(false);
+      message.setBodyInputStream(ServiceTestBase.createFakeLargeStream(size));
+      producer.send(message);
+
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+
+      session.start();
+
+      ClientMessage received = consumer.receive(10000);
+      assertNotNull(received);
+      assertEquals(size, received.getBodySize());
+
+      for (int i = 0; i < size; i++)
+      {
+         assertEquals(ServiceTestBase.getSamplebyte(i), received.getBodyBuffer().readByte());
+      }
+
+      received.acknowledge();
+
+      session.close();
+
+      sf.close();
+   }
+
+   public void testMalformedFrames() throws Exception
+   {
+      startServer(true);
+
+      // RAW frame without its type
+      assertClosedOnFrame(0, 0, -1);
+      // DEFLATED frame without its original length
+      assertClosedOnFrame(4, 1, -1);
+      // unknown type
+      assertClosedOnFrame(10, 2, -1);
+      // negative length
+      assertClosedOnFrame(-10, 0, -1);
+      // negative original length
+      assertClosedOnFrame(10, 1, -5);
+      // original length that would allocate 2 GB
+      assertClosedOnFrame(10, 1, Integer.MAX_VALUE);
+
+      // the acceptor still serves well formed connections
+      internalTestSendReceive(createSessionFactory(true));
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      if (locator != null)
+      {
+         locator.close();
+         locator = null;
+      }
+
+      if (server != null)
+      {
+         server.stop();
+         server = null;
+      }
+
+      super.tearDown();
+   }
+
+   // Private -------------------------------------------------------
+
+   private void startServer(final boolean compressionEnabled) throws Exception
+   {
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put(TransportConstants.COMPRESSION_ENABLED_PROP_NAME, compressionEnabled);
+
+      Configuration config = createBasicConfig();
+      config.getAcceptorConfigurations().add(new TransportConfiguration(NettyAcceptorFactory.class.getName(), params));
+      config.setSecurityEnabled(false);
+
+      server = createServer(false, config);
+      server.start();
+   }
+
+   private void assertClosedOnFrame(final int length, final int type, final int originalLength) throws Exception
+   {
+      Socket socket = new Socket(TransportConstants.DEFAULT_HOST, TransportConstants.DEFAULT_PORT);
+
+      try
+      {
+         socket.setSoTimeout(10000);
+
+         DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+         InputStream in = socket.getInputStream();
+
+         // compression request, accepted
+         out.write(new byte[] { 'H', 'Q', 'Z', 1 });
+         out.flush();
+         assertEquals(1, in.read());
+
+         out.writeInt(length);
+         out.writeByte(type);
+         if (originalLength != -1)
+         {
+            out.writeInt(originalLength);
+         }
+         out.write(new byte[16]);
+         out.flush();
+
+         // the acceptor closes the connection
+         assertEquals(-1, in.read());
+      }
+      finally
+      {
+         socket.close();
+      }
+   }
+
+   private ServerLocator createLocator(final boolean compressionEnabled)
+   {
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put(TransportConstants.COMPRESSION_ENABLED_PROP_NAME, compressionEnabled);
+      params.put(TransportConstants.COMPRESSION_MIN_SIZE_PROP_NAME, 512);
+
+      return HornetQClient.createServerLocatorWithoutHA(new TransportConfiguration(ServiceTestBase.NETTY_CONNECTOR_FACTORY,
+                                                                                   params));
+   }
+
+   private ClientSessionFactory createSessionFactory(final boolean compressionEnabled) throws Exception
+   {
+      locator = createLocator(compressionEnabled);
+
+      return locator.createSessionFactory();
+   }
+
+   private void internalTestSendReceive(final ClientSessionFactory sf) throws Exception
+   {
+      ClientSession session = sf.createSession();
+
+      session.createQueue(QUEUE, QUEUE, null, false);
+
+      ClientProducer producer = session.createProducer(QUEUE);
+
+      final int numMessages = 100;
+
+      // a mix of messages below and above the minimum size, compressible and not
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = session.createMessage(false);
+         message.putIntProperty("count", i);
+
+         StringBuffer text = new StringBuffer();
+         for (int j = 0; j < i * 10; j++)
+         {
+            text.append(i % 2 == 0 ? "compressible " : String.valueOf(Math.random()));
+         }
+         message.getBodyBuffer().writeString(text.toString());
+
+         producer.send(message);
+      }
+
+      ClientConsumer consumer = session.createConsumer(QUEUE);
+
+      session.start();
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = consumer.receive(10000);
+         assertNotNull(message);
+         assertEquals(i, message.getIntProperty("count").intValue());
+
+         String text = message.getBodyBuffer().readString();
+         if (i % 2 == 0)
+         {
+            assertEquals(i * 10 * "compressible ".length(), text.length());
+         }
+
+         message.acknowledge();
+      }
+
+      assertNull(consumer.receiveImmediate());
+
+      session.close();
+
+      sf.close();
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
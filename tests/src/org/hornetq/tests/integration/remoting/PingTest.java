@@ -289,6 +289,8 @@ public class PingTest extends ServiceTestBase
 
       Assert.assertNotNull(serverListener.getException());
 
+      Assert.assertEquals(1, server.getRemotingService().getExpiredConnectionCount());
+
       session.close();
 
       csf.close();
@@ -76,7 +76,8 @@ public class HornetQFrameDecoder2Test extends UnitTestCase
             {
                break;
             }
-            Assert.assertTrue("Produced frame must be a dynamic buffer", frame instanceof DynamicChannelBuffer);
+            Assert.assertTrue("Produced frame must be a dynamic buffer unless it fills half the read buffer",
+                              frame instanceof DynamicChannelBuffer || HornetQFrameDecoder2Test.MSG_LEN + 4 >= p.capacity() / 2);
             Assert.assertEquals(4, frame.readerIndex());
             Assert.assertEquals(HornetQFrameDecoder2Test.MSG_LEN, frame.readableBytes());
             Assert.assertEquals(src.slice(cnt * (HornetQFrameDecoder2Test.MSG_LEN + 4) + 4,
@@ -116,4 +117,32 @@ public class HornetQFrameDecoder2Test extends UnitTestCase
       Assert.assertEquals(7, frame.getByte(6));
       Assert.assertEquals(8, frame.getByte(7));
    }
+
+   public void testBigFrameIsNotCopied() throws Exception
+   {
+      final DecoderEmbedder<ChannelBuffer> decoder = new DecoderEmbedder<ChannelBuffer>(new HornetQFrameDecoder2());
+
+      ChannelBuffer in = ChannelBuffers.buffer(4 + HornetQFrameDecoder2Test.MSG_LEN + 4 + 10);
+      in.writeInt(HornetQFrameDecoder2Test.MSG_LEN);
+      in.writeBytes(new byte[HornetQFrameDecoder2Test.MSG_LEN]);
+      in.writeInt(10);
+      in.writeBytes(new byte[10]);
+
+      decoder.offer(in);
+
+      ChannelBuffer big = decoder.poll();
+      Assert.assertEquals(4, big.readerIndex());
+      Assert.assertEquals(HornetQFrameDecoder2Test.MSG_LEN, big.readableBytes());
+
+      // the big frame shares the read buffer
+      in.setByte(4, 1);
+      Assert.assertEquals(1, big.getByte(4));
+
+      ChannelBuffer small = decoder.poll();
+      Assert.assertTrue("Small frame must be copied", small instanceof DynamicChannelBuffer);
+      Assert.assertEquals(4, small.readerIndex());
+      Assert.assertEquals(10, small.readableBytes());
+
+      Assert.assertNull(decoder.poll());
+   }
 }
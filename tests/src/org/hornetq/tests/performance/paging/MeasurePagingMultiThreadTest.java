@@ -55,11 +55,29 @@ public class MeasurePagingMultiThreadTest extends ServiceTestBase
 
    public void testPagingMultipleSenders() throws Throwable
    {
+      internalTestPagingMultipleSenders(18, 50000, 1024);
+   }
 
-      final int NUMBER_OF_THREADS = 18;
-      final int NUMBER_OF_MESSAGES = 50000;
+   /**
+    * Measures how the throughput to a single paged address scales with the number of producers
+    */
+   public void testPagingScalingSenders() throws Throwable
+   {
+      final int TOTAL_MESSAGES = 200000;
       final int SIZE_OF_MESSAGE = 1024;
 
+      for (int threads : new int[] { 1, 10, 50, 200 })
+      {
+         System.out.println("Measuring " + threads + " senders");
+         internalTestPagingMultipleSenders(threads, TOTAL_MESSAGES / threads, SIZE_OF_MESSAGE);
+         clearData();
+      }
+   }
+
+   private void internalTestPagingMultipleSenders(final int NUMBER_OF_THREADS,
+                                                  final int NUMBER_OF_MESSAGES,
+                                                  final int SIZE_OF_MESSAGE) throws Throwable
+   {
       Configuration config = createDefaultConfig();
 
       HashMap<String, AddressSettings> settings = new HashMap<String, AddressSettings>();
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.remoting;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.MessageHandler;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.tests.util.ServiceTestBase;
+
+/**
+ * Measures the memory allocated (by all the threads, client and server) for each message delivered over the in-VM
+ * transport to a MessageHandler, with and without recycling the client messages. The messages are sent before the
+ * session is started, only their delivery is measured.
+ *
+ * The allocations are measured with the thread allocation counters of the Sun/Oracle JVMs, the test only reports
+ * the throughput on the other JVMs.
+ *
+ */
+public class MeasureClientMessageAllocationTest extends ServiceTestBase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final SimpleString ADDRESS = new SimpleString("ClientMessageAllocationAddress");
+
+   private static final int NUMBER_OF_MESSAGES = 50000;
+
+   private static final int WARMUP = 2;
+
+   private static final int ITERATIONS = 5;
+
+   // Attributes ----------------------------------------------------
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   // Public --------------------------------------------------------
+
+   public void testNewMessages() throws Exception
+   {
+      internalTestAllocation(false);
+   }
+
+   public void testRecycledMessages() throws Exception
+   {
+      internalTestAllocation(true);
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      clearData();
+
+      server = createServer(false);
+      server.start();
+
+      locator = createInVMNonHALocator();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      locator.close();
+
+      server.stop();
+
+      server = null;
+
+      super.tearDown();
+   }
+
+   // Private -------------------------------------------------------
+
+   private void internalTestAllocation(final boolean recycle) throws Exception
+   {
+      locator.setRecycleMessages(recycle);
+
+      ClientSessionFactory sf = locator.createSessionFactory();
+
+      ClientSession session = sf.createSession();
+
+      session.createQueue(ADDRESS, ADDRESS, null, false);
+
+      ClientProducer producer = session.createProducer(ADDRESS);
+
+      ClientConsumer consumer = session.createConsumer(ADDRESS);
+
+      byte[] body = new byte[100];
+
+      for (int i = 0; i < WARMUP + ITERATIONS; i++)
+      {
+         final CountDownLatch received = new CountDownLatch(NUMBER_OF_MESSAGES);
+
+         consumer.setMessageHandler(new MessageHandler()
+         {
+            public void onMessage(final ClientMessage message)
+            {
+               try
+               {
+                  message.getIntProperty("count");
+
+                  message.acknowledge();
+               }
+               catch (Exception e)
+               {
+                  e.printStackTrace();
+               }
+
+               received.countDown();
+            }
+         });
+
+         for (int j = 0; j < NUMBER_OF_MESSAGES; j++)
+         {
+            ClientMessage message = session.createMessage(false);
+            message.putIntProperty("count", j);
+            message.getBodyBuffer().writeBytes(body);
+
+            producer.send(message);
+         }
+
+         // only the delivery is measured
+         long allocated = allocatedBytes();
+
+         long start = System.currentTimeMillis();
+
+         session.start();
+
+         assertTrue(received.await(60, TimeUnit.SECONDS));
+
+         long time = System.currentTimeMillis() - start;
+
+         allocated = allocatedBytes() - allocated;
+
+         session.stop();
+
+         consumer.setMessageHandler(null);
+
+         if (i >= WARMUP)
+         {
+            System.out.println((recycle ? "recycled messages: " : "new messages: ") + NUMBER_OF_MESSAGES *
+                               1000L /
+                               Math.max(1, time) +
+                               " messages/sec (" +
+                               time +
+                               " ms)" +
+                               (allocated < 0 ? "" : ", " + allocated / NUMBER_OF_MESSAGES + " bytes allocated/message"));
+         }
+      }
+
+      session.close();
+
+      sf.close();
+   }
+
+   /**
+    * @return the bytes allocated so far by the live threads, -1 if unknown
+    */
+   private long allocatedBytes()
+   {
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+      if (!(threads instanceof com.sun.management.ThreadMXBean))
+      {
+         return -1;
+      }
+
+      long[] allocated = ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(threads.getAllThreadIds());
+
+      long total = 0;
+
+      for (long bytes : allocated)
+      {
+         total += Math.max(0, bytes);
+      }
+
+      return total;
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.remoting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.TransportConfiguration;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.HornetQClient;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.remoting.impl.netty.NettyAcceptorFactory;
+import org.hornetq.core.remoting.impl.netty.TransportConstants;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.server.Queue;
+import org.hornetq.tests.util.ServiceTestBase;
+
+/**
+ * Measures how the NIO and the blocking (OIO) acceptors cope with a growing number of connections.
+ *
+ * Idle connections only connect and create a session, active connections also send a message each.
+ * The number of connections is limited by the file handles and ephemeral ports available to the process.
+ *
+ */
+public class MeasureConnectionScalingTest extends ServiceTestBase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final SimpleString ADDRESS = new SimpleString("ScalingAddress");
+
+   private static final int[] CONNECTIONS = new int[] { 1000, 10000, 50000 };
+
+   // Attributes ----------------------------------------------------
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+      clearData();
+   }
+
+   public void testIdleConnectionsNIO() throws Exception
+   {
+      for (int connections : CONNECTIONS)
+      {
+         internalTestConnections(true, connections, false);
+      }
+   }
+
+   public void testIdleConnectionsOIO() throws Exception
+   {
+      for (int connections : CONNECTIONS)
+      {
+         internalTestConnections(false, connections, false);
+      }
+   }
+
+   public void testActiveConnectionsNIO() throws Exception
+   {
+      for (int connections : CONNECTIONS)
+      {
+         internalTestConnections(true, connections, true);
+      }
+   }
+
+   public void testActiveConnectionsOIO() throws Exception
+   {
+      for (int connections : CONNECTIONS)
+      {
+         internalTestConnections(false, connections, true);
+      }
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   protected void internalTestConnections(final boolean nioServer, final int numberOfConnections, final boolean active) throws Exception
+   {
+      Configuration config = createDefaultConfig(false);
+
+      Map<String, Object> acceptorParams = new HashMap<String, Object>();
+      acceptorParams.put(TransportConstants.USE_NIO_PROP_NAME, nioServer);
+      acceptorParams.put(TransportConstants.BACKLOG_PROP_NAME, 1024);
+
+      config.getAcceptorConfigurations().clear();
+      config.getAcceptorConfigurations().add(new TransportConfiguration(NettyAcceptorFactory.class.getName(),
+                                                                        acceptorParams));
+
+      HornetQServer server = createServer(false, config);
+
+      server.start();
+
+      // the client side always uses NIO, so only the server threads grow with the connections
+      Map<String, Object> connectorParams = new HashMap<String, Object>();
+      connectorParams.put(TransportConstants.USE_NIO_PROP_NAME, true);
+
+      ServerLocator locator = HornetQClient.createServerLocatorWithoutHA(new TransportConfiguration(ServiceTestBase.NETTY_CONNECTOR_FACTORY,
+                                                                                                   connectorParams));
+
+      List<ClientSessionFactory> factories = new ArrayList<ClientSessionFactory>(numberOfConnections);
+
+      try
+      {
+         ClientSession adminSession = locator.createSessionFactory().createSession();
+         adminSession.createQueue(ADDRESS, ADDRESS, null, false);
+         adminSession.close();
+
+         long start = System.currentTimeMillis();
+
+         int created = 0;
+
+         try
+         {
+            for (int i = 0; i < numberOfConnections; i++)
+            {
+               ClientSessionFactory factory = locator.createSessionFactory();
+               factories.add(factory);
+
+               ClientSession session = factory.createSession();
+
+               if (active)
+               {
+                  ClientProducer producer = session.createProducer(ADDRESS);
+                  producer.send(session.createMessage(false));
+                  producer.close();
+               }
+
+               created++;
+            }
+         }
+         catch (Exception e)
+         {
+            System.out.println("Could only create " + created + " connections: " + e.getMessage());
+         }
+
+         long time = System.currentTimeMillis() - start;
+
+         System.gc();
+
+         Runtime runtime = Runtime.getRuntime();
+
+         System.out.println((nioServer ? "NIO" : "OIO") + " acceptor, " +
+                            created +
+                            (active ? " active" : " idle") +
+                            " connections: " +
+                            time +
+                            " ms to connect (" +
+                            (created * 1000L / Math.max(1, time)) +
+                            " connections/sec), " +
+                            countRemotingThreads() +
+                            " server remoting threads, " +
+                            (runtime.totalMemory() - runtime.freeMemory()) / 1024 / 1024 +
+                            " MiB used");
+
+         if (active)
+         {
+            Queue queue = server.locateQueue(ADDRESS);
+            assertEquals(created, queue.getMessageCount());
+         }
+      }
+      finally
+      {
+         for (ClientSessionFactory factory : factories)
+         {
+            factory.close();
+         }
+
+         locator.close();
+
+         server.stop();
+      }
+   }
+
+   // Private -------------------------------------------------------
+
+   private int countRemotingThreads()
+   {
+      int count = 0;
+
+      for (Thread thread : Thread.getAllStackTraces().keySet())
+      {
+         // Netty renames its I/O threads, but they stay in the thread group of the remoting thread factory
+         ThreadGroup group = thread.getThreadGroup();
+         if (group != null && group.getName().startsWith("HornetQ-remoting-threads"))
+         {
+            count++;
+         }
+      }
+
+      return count;
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
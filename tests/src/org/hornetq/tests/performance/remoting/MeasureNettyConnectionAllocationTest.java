@@ -0,0 +1,268 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.remoting;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.SocketAddress;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.core.remoting.impl.netty.NettyConnection;
+import org.hornetq.spi.core.protocol.ProtocolType;
+import org.hornetq.spi.core.remoting.Connection;
+import org.hornetq.spi.core.remoting.ConnectionLifeCycleListener;
+import org.hornetq.tests.util.UnitTestCase;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelConfig;
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.Channels;
+
+/**
+ * Measures the memory allocated and the time taken to encode and write a packet through a batching NettyConnection,
+ * on a single thread. The channel completes the writes straight away, so only the connection's own buffer handling
+ * is measured.
+ *
+ * The allocations are measured with the thread allocation counters of the Sun/Oracle JVMs, the test only reports
+ * the time on the other JVMs.
+ *
+ */
+public class MeasureNettyConnectionAllocationTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int NUMBER_OF_PACKETS = 1000000;
+
+   private static final int PACKET_SIZE = 200;
+
+   private static final int WARMUP = 2;
+
+   private static final int ITERATIONS = 5;
+
+   // Attributes ----------------------------------------------------
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   // Public --------------------------------------------------------
+
+   public void testBatchedWrites() throws Exception
+   {
+      NettyConnection conn = new NettyConnection(new CompletingChannel(), new DummyListener(), true, false);
+
+      byte[] packet = new byte[PACKET_SIZE];
+
+      for (int i = 0; i < WARMUP + ITERATIONS; i++)
+      {
+         long allocated = allocatedBytes();
+
+         long start = System.nanoTime();
+
+         for (int j = 0; j < NUMBER_OF_PACKETS; j++)
+         {
+            HornetQBuffer buffer = conn.createBuffer(1500);
+
+            buffer.writeBytes(packet);
+
+            conn.write(buffer, false, true);
+         }
+
+         conn.checkFlushBatchBuffer();
+
+         long time = System.nanoTime() - start;
+
+         allocated = allocatedBytes() - allocated;
+
+         if (i >= WARMUP)
+         {
+            System.out.println("batched writes: " + time /
+                               NUMBER_OF_PACKETS +
+                               " ns/packet" +
+                               (allocated < 0 ? "" : ", " + allocated / NUMBER_OF_PACKETS + " bytes allocated/packet"));
+         }
+      }
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   // Private -------------------------------------------------------
+
+   /**
+    * @return the bytes allocated so far by this thread, -1 if unknown
+    */
+   private long allocatedBytes()
+   {
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+      if (!(threads instanceof com.sun.management.ThreadMXBean))
+      {
+         return -1;
+      }
+
+      return ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+
+   // Inner classes -------------------------------------------------
+
+   /**
+    * A channel whose writes complete as soon as they are made.
+    */
+   private static final class CompletingChannel implements Channel
+   {
+      public int compareTo(final Channel other)
+      {
+         return 0;
+      }
+
+      public ChannelFuture write(final Object message, final SocketAddress remoteAddress)
+      {
+         return Channels.succeededFuture(this);
+      }
+
+      public ChannelFuture write(final Object message)
+      {
+         return Channels.succeededFuture(this);
+      }
+
+      public ChannelFuture unbind()
+      {
+         return null;
+      }
+
+      public ChannelFuture setReadable(final boolean readable)
+      {
+         return null;
+      }
+
+      public ChannelFuture setInterestOps(final int interestOps)
+      {
+         return null;
+      }
+
+      public boolean isWritable()
+      {
+         return true;
+      }
+
+      public boolean isReadable()
+      {
+         return true;
+      }
+
+      public boolean isOpen()
+      {
+         return true;
+      }
+
+      public boolean isConnected()
+      {
+         return true;
+      }
+
+      public boolean isBound()
+      {
+         return true;
+      }
+
+      public SocketAddress getRemoteAddress()
+      {
+         return null;
+      }
+
+      public ChannelPipeline getPipeline()
+      {
+         return null;
+      }
+
+      public Channel getParent()
+      {
+         return null;
+      }
+
+      public SocketAddress getLocalAddress()
+      {
+         return null;
+      }
+
+      public int getInterestOps()
+      {
+         return 0;
+      }
+
+      public Integer getId()
+      {
+         return 1;
+      }
+
+      public ChannelFactory getFactory()
+      {
+         return null;
+      }
+
+      public ChannelConfig getConfig()
+      {
+         return null;
+      }
+
+      public ChannelFuture getCloseFuture()
+      {
+         return null;
+      }
+
+      public ChannelFuture disconnect()
+      {
+         return null;
+      }
+
+      public ChannelFuture connect(final SocketAddress remoteAddress)
+      {
+         return null;
+      }
+
+      public ChannelFuture close()
+      {
+         return null;
+      }
+
+      public ChannelFuture bind(final SocketAddress localAddress)
+      {
+         return null;
+      }
+   }
+
+   private static final class DummyListener implements ConnectionLifeCycleListener
+   {
+      public void connectionCreated(final Connection connection, final ProtocolType protocol)
+      {
+      }
+
+      public void connectionDestroyed(final Object connectionID)
+      {
+      }
+
+      public void connectionException(final Object connectionID, final HornetQException me)
+      {
+      }
+
+      public void connectionReadyForWrites(final Object connectionID, final boolean ready)
+      {
+      }
+   }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.remoting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.server.Queue;
+import org.hornetq.tests.util.ServiceTestBase;
+
+/**
+ * Measures the throughput of a producer of small non durable messages, sending them one by one or in batches with
+ * {@link ClientProducer#send(List)}. The time is measured until all the messages are in the queue.
+ *
+ */
+public class MeasureProducerBatchTest extends ServiceTestBase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final SimpleString ADDRESS = new SimpleString("ProducerBatchAddress");
+
+   private static final int NUMBER_OF_MESSAGES = 200000;
+
+   private static final int BATCH_SIZE = 100;
+
+   private static final int BODY_SIZE = 100;
+
+   private static final int WARMUP = 2;
+
+   private static final int ITERATIONS = 5;
+
+   // Attributes ----------------------------------------------------
+
+   private HornetQServer server;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   // Public --------------------------------------------------------
+
+   public void testSingleSendsInVM() throws Exception
+   {
+      internalTestThroughput(false, false);
+   }
+
+   public void testBatchSendsInVM() throws Exception
+   {
+      internalTestThroughput(false, true);
+   }
+
+   public void testSingleSendsNetty() throws Exception
+   {
+      internalTestThroughput(true, false);
+   }
+
+   public void testBatchSendsNetty() throws Exception
+   {
+      internalTestThroughput(true, true);
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      clearData();
+
+      server = createServer(false, true);
+      server.start();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      server.stop();
+
+      server = null;
+
+      super.tearDown();
+   }
+
+   // Private -------------------------------------------------------
+
+   private void internalTestThroughput(final boolean netty, final boolean batch) throws Exception
+   {
+      ServerLocator locator = netty ? createNettyNonHALocator() : createInVMNonHALocator();
+
+      ClientSessionFactory sf = locator.createSessionFactory();
+
+      ClientSession session = sf.createSession();
+
+      session.createQueue(ADDRESS, ADDRESS, null, false);
+
+      Queue queue = (Queue)server.getPostOffice().getBinding(ADDRESS).getBindable();
+
+      ClientProducer producer = session.createProducer(ADDRESS);
+
+      byte[] body = new byte[BODY_SIZE];
+
+      for (int i = 0; i < WARMUP + ITERATIONS; i++)
+      {
+         long start = System.currentTimeMillis();
+
+         List<ClientMessage> messages = new ArrayList<ClientMessage>(BATCH_SIZE);
+
+         for (int j = 0; j < NUMBER_OF_MESSAGES; j++)
+         {
+            ClientMessage message = session.createMessage(false);
+
+            message.getBodyBuffer().writeBytes(body);
+
+            if (batch)
+            {
+               messages.add(message);
+
+               if (messages.size() == BATCH_SIZE)
+               {
+                  producer.send(messages);
+
+                  messages = new ArrayList<ClientMessage>(BATCH_SIZE);
+               }
+            }
+            else
+            {
+               producer.send(message);
+            }
+         }
+
+         if (!messages.isEmpty())
+         {
+            producer.send(messages);
+         }
+
+         while (queue.getMessageCount() < NUMBER_OF_MESSAGES)
+         {
+            Thread.sleep(1);
+         }
+
+         long time = System.currentTimeMillis() - start;
+
+         if (i >= WARMUP)
+         {
+            System.out.println((netty ? "netty" : "in-VM") + (batch ? ", batches of " + BATCH_SIZE : ", single sends") +
+                               ": " +
+                               NUMBER_OF_MESSAGES *
+                               1000L /
+                               Math.max(1, time) +
+                               " messages/sec (" +
+                               time +
+                               " ms)");
+         }
+
+         queue.deleteAllReferences();
+      }
+
+      session.close();
+
+      sf.close();
+
+      locator.close();
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.util;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.TypedProperties;
+
+/**
+ * Measures the encoding and decoding of the body of a large map message (a TypedProperties of 500 doubles, as sent
+ * by a market data feed), reading one, some or all of its entries after decoding.
+ *
+ */
+public class MeasureMapMessageBodyTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int NUMBER_OF_ENTRIES = 500;
+
+   private static final int MESSAGES = 20000;
+
+   private static final int WARMUP = 2;
+
+   private static final int ITERATIONS = 5;
+
+   // Attributes ----------------------------------------------------
+
+   private final SimpleString[] keys = new SimpleString[NUMBER_OF_ENTRIES];
+
+   private HornetQBuffer body;
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   // Public --------------------------------------------------------
+
+   public void testEncode() throws Exception
+   {
+      for (int i = 0; i < WARMUP + ITERATIONS; i++)
+      {
+         HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(body.writerIndex());
+
+         long begin = System.currentTimeMillis();
+
+         for (int j = 0; j < MESSAGES; j++)
+         {
+            buffer.clear();
+            createMap().encode(buffer);
+         }
+
+         report(i, "encode", System.currentTimeMillis() - begin);
+      }
+   }
+
+   public void testDecodeReadOne() throws Exception
+   {
+      internalTestDecode(1, false);
+   }
+
+   public void testDecodeReadTen() throws Exception
+   {
+      internalTestDecode(10, false);
+   }
+
+   public void testDecodeReadAll() throws Exception
+   {
+      internalTestDecode(NUMBER_OF_ENTRIES, false);
+   }
+
+   public void testFullyDecodeReadOne() throws Exception
+   {
+      internalTestDecode(1, true);
+   }
+
+   public void testFullyDecodeReadAll() throws Exception
+   {
+      internalTestDecode(NUMBER_OF_ENTRIES, true);
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      for (int i = 0; i < NUMBER_OF_ENTRIES; i++)
+      {
+         keys[i] = new SimpleString("instrument" + i);
+      }
+
+      body = HornetQBuffers.dynamicBuffer(16 * 1024);
+
+      createMap().encode(body);
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      body = null;
+
+      super.tearDown();
+   }
+
+   // Private -------------------------------------------------------
+
+   private TypedProperties createMap()
+   {
+      TypedProperties map = new TypedProperties();
+
+      for (int i = 0; i < NUMBER_OF_ENTRIES; i++)
+      {
+         map.putDoubleProperty(keys[i], i * 1.25);
+      }
+
+      return map;
+   }
+
+   /**
+    * @param fully decode all the entries first, as when the map is iterated
+    */
+   private void internalTestDecode(final int reads, final boolean fully) throws Exception
+   {
+      for (int i = 0; i < WARMUP + ITERATIONS; i++)
+      {
+         double sum = 0;
+
+         long begin = System.currentTimeMillis();
+
+         for (int j = 0; j < MESSAGES; j++)
+         {
+            body.readerIndex(0);
+
+            TypedProperties map = new TypedProperties();
+            map.decode(body);
+
+            if (fully)
+            {
+               map.getPropertyNames();
+            }
+
+            for (int k = 0; k < reads; k++)
+            {
+               sum += map.getDoubleProperty(keys[(j + k) % NUMBER_OF_ENTRIES]);
+            }
+         }
+
+         long time = System.currentTimeMillis() - begin;
+
+         assertTrue(sum > 0);
+
+         report(i, (fully ? "full decode, " : "decode, ") + reads + " reads", time);
+      }
+   }
+
+   private void report(final int iteration, final String test, final long time)
+   {
+      if (iteration >= WARMUP)
+      {
+         System.out.println(test + ": " + MESSAGES * 1000L / Math.max(1, time) + " messages/sec (" + time + " ms)");
+      }
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.TypedProperties;
+
+/**
+ * Measures the property reads of a TypedProperties shared by several threads, as the properties of a message
+ * delivered to many queues are read by their filters, groups and consumers.
+ *
+ */
+public class MeasureTypedPropertiesMultiThreadTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int NUMBER_OF_PROPERTIES = 10;
+
+   private static final int READS = 2000000;
+
+   private static final int WARMUP = 2;
+
+   private static final int ITERATIONS = 5;
+
+   // Attributes ----------------------------------------------------
+
+   private final SimpleString[] keys = new SimpleString[NUMBER_OF_PROPERTIES];
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   // Public --------------------------------------------------------
+
+   public void testReadsOneThread() throws Exception
+   {
+      internalTestReads(1, false);
+   }
+
+   public void testReadsFourThreads() throws Exception
+   {
+      internalTestReads(4, false);
+   }
+
+   public void testReadsSixteenThreads() throws Exception
+   {
+      internalTestReads(16, false);
+   }
+
+   public void testDecodedReadsFourThreads() throws Exception
+   {
+      internalTestReads(4, true);
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      for (int i = 0; i < NUMBER_OF_PROPERTIES; i++)
+      {
+         keys[i] = new SimpleString("property" + i);
+      }
+   }
+
+   // Private -------------------------------------------------------
+
+   private TypedProperties createProperties(final boolean decoded)
+   {
+      TypedProperties props = new TypedProperties();
+
+      for (int i = 0; i < NUMBER_OF_PROPERTIES; i++)
+      {
+         if (i % 2 == 0)
+         {
+            props.putIntProperty(keys[i], i);
+         }
+         else
+         {
+            props.putSimpleStringProperty(keys[i], new SimpleString("value" + i));
+         }
+      }
+
+      if (!decoded)
+      {
+         return props;
+      }
+
+      // as on the server, where the properties are decoded from the message buffer
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(1024);
+      props.encode(buffer);
+
+      TypedProperties decodedProps = new TypedProperties();
+      decodedProps.decode(buffer);
+
+      return decodedProps;
+   }
+
+   private void internalTestReads(final int numberOfThreads, final boolean decoded) throws Exception
+   {
+      for (int i = 0; i < WARMUP + ITERATIONS; i++)
+      {
+         final TypedProperties props = createProperties(decoded);
+
+         final CountDownLatch ready = new CountDownLatch(numberOfThreads);
+
+         final CountDownLatch start = new CountDownLatch(1);
+
+         final AtomicInteger errors = new AtomicInteger(0);
+
+         Thread[] threads = new Thread[numberOfThreads];
+
+         for (int t = 0; t < numberOfThreads; t++)
+         {
+            threads[t] = new Thread()
+            {
+               @Override
+               public void run()
+               {
+                  ready.countDown();
+
+                  try
+                  {
+                     start.await();
+
+                     for (int j = 0; j < READS; j++)
+                     {
+                        if (props.getProperty(keys[j % NUMBER_OF_PROPERTIES]) == null)
+                        {
+                           errors.incrementAndGet();
+                        }
+                     }
+                  }
+                  catch (Exception e)
+                  {
+                     e.printStackTrace();
+
+                     errors.incrementAndGet();
+                  }
+               }
+            };
+
+            threads[t].start();
+         }
+
+         ready.await();
+
+         long begin = System.currentTimeMillis();
+
+         start.countDown();
+
+         for (Thread thread : threads)
+         {
+            thread.join();
+         }
+
+         long time = System.currentTimeMillis() - begin;
+
+         assertEquals(0, errors.get());
+
+         if (i >= WARMUP)
+         {
+            System.out.println((decoded ? "decoded properties, " : "properties, ") + numberOfThreads +
+                               " threads: " +
+                               (long)READS * numberOfThreads * 1000L / Math.max(1, time) +
+                               " reads/sec (" +
+                               time +
+                               " ms)");
+         }
+      }
+   }
+
+   // Inner classes -------------------------------------------------
+
+}
@@ -17,6 +17,7 @@ import junit.framework.Assert;
 
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.SimpleString;
 import org.hornetq.tests.util.UnitTestCase;
 import org.hornetq.utils.UTF8Util;
 
@@ -42,6 +43,11 @@ public class UTF8Test extends UnitTestCase
                               + "abcdef&^*&!^ghijkl\uB5E2\uCAC7\uB2BB\uB7DD\uB7C7\uB3A3\uBCE4\uB5A5"
                               + "abcdef&^*&!^ghijkl\uB5E2\uCAC7\uB2BB\uB7DD\uB7C7\uB3A3\uBCE4\uB5A5";
 
+   // a typical text message body, only ASCII
+   private final String text = "<order id=\"1234567\" customer=\"ACME Corporation\" date=\"2010-09-21T10:15:30Z\">" + "<item sku=\"HQ-1001\" quantity=\"12\" price=\"19.99\"/>"
+                               + "<item sku=\"HQ-2002\" quantity=\"1\" price=\"249.00\"/>"
+                               + "<note>Deliver to the loading dock, ask for J. Smith</note></order>";
+
    final int TIMES = 5;
 
    final long numberOfIteractions = 1000000;
@@ -100,6 +106,88 @@ public class UTF8Test extends UnitTestCase
 
    }
 
+   public void testWriteUTFText() throws Exception
+   {
+      HornetQBuffer buffer = HornetQBuffers.fixedBuffer(10 * 1024);
+
+      long start = System.currentTimeMillis();
+
+      for (int c = 0; c < TIMES; c++)
+      {
+         for (long i = 0; i < numberOfIteractions; i++)
+         {
+            if (i == 10000)
+            {
+               start = System.currentTimeMillis();
+            }
+
+            buffer.clear();
+            buffer.writeUTF(text);
+         }
+
+         long spentTime = System.currentTimeMillis() - start;
+
+         System.out.println("Time WriteUTF (text) = " + spentTime);
+      }
+   }
+
+   public void testReadUTFText() throws Exception
+   {
+      HornetQBuffer buffer = HornetQBuffers.fixedBuffer(10 * 1024);
+
+      buffer.writeUTF(text);
+
+      long start = System.currentTimeMillis();
+
+      for (int c = 0; c < TIMES; c++)
+      {
+         for (long i = 0; i < numberOfIteractions; i++)
+         {
+            if (i == 10000)
+            {
+               start = System.currentTimeMillis();
+            }
+
+            buffer.resetReaderIndex();
+            String newstr = buffer.readUTF();
+            Assert.assertEquals(text.length(), newstr.length());
+         }
+
+         long spentTime = System.currentTimeMillis() - start;
+
+         System.out.println("Time readUTF (text) = " + spentTime);
+      }
+   }
+
+   // as a text message body is written and read
+   public void testTextMessageBody() throws Exception
+   {
+      HornetQBuffer buffer = HornetQBuffers.fixedBuffer(10 * 1024);
+
+      long start = System.currentTimeMillis();
+
+      for (int c = 0; c < TIMES; c++)
+      {
+         for (long i = 0; i < numberOfIteractions; i++)
+         {
+            if (i == 10000)
+            {
+               start = System.currentTimeMillis();
+            }
+
+            buffer.clear();
+            buffer.writeNullableSimpleString(new SimpleString(text));
+
+            String newstr = buffer.readNullableSimpleString().toString();
+            Assert.assertEquals(text.length(), newstr.length());
+         }
+
+         long spentTime = System.currentTimeMillis() - start;
+
+         System.out.println("Time text message body = " + spentTime);
+      }
+   }
+
    @Override
    protected void tearDown() throws Exception
    {
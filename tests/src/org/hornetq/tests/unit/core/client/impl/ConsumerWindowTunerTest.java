@@ -0,0 +1,229 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.core.client.impl;
+
+import junit.framework.Assert;
+
+import org.hornetq.core.client.impl.ConsumerWindowTuner;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * A ConsumerWindowTunerTest
+ *
+ */
+public class ConsumerWindowTunerTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final long MILLISECOND = 1000000;
+
+   // Attributes ----------------------------------------------------
+
+   // Static --------------------------------------------------------
+
+   // Constructors --------------------------------------------------
+
+   // Public --------------------------------------------------------
+
+   public void testWindowGrowsForFastConsumer() throws Exception
+   {
+      ConsumerWindowTuner tuner = new ConsumerWindowTuner(1000, 0);
+
+      // the server sends the whole window and waits for credits
+      tuner.received(1000, 0);
+
+      // half the window consumed in 1/2 ms
+      Assert.assertEquals(500, tuner.resize(500, MILLISECOND / 2));
+
+      // 1 ms later, the server delivers again
+      tuner.received(500, 3 * MILLISECOND / 2);
+
+      Assert.assertEquals(1000, tuner.getRoundTrip());
+      Assert.assertEquals(1000, tuner.getWindowSize());
+
+      // about 1 KB consumed per ms with a round trip of 1 ms: the window grows, the server gets the credits
+      // consumed and the growth of the window
+      int credits = tuner.resize(500, 2 * MILLISECOND);
+
+      Assert.assertTrue(tuner.getWindowSize() > 1500);
+      Assert.assertEquals(500 + tuner.getWindowSize() - 1000, credits);
+   }
+
+   public void testWindowShrinksForSlowConsumer() throws Exception
+   {
+      ConsumerWindowTuner tuner = new ConsumerWindowTuner(100000, 0);
+
+      tuner.received(100000, 0);
+
+      // 50 KB consumed in 10 s
+      Assert.assertEquals(50000, tuner.resize(50000, 10000 * MILLISECOND));
+
+      tuner.received(100, 10001 * MILLISECOND);
+
+      Assert.assertEquals(5000, tuner.getConsumptionRate());
+
+      // the window shrinks to its minimum, the credits consumed are held back
+      Assert.assertEquals(0, tuner.resize(50000, 20000 * MILLISECOND));
+      Assert.assertEquals(100000 / ConsumerWindowTuner.RANGE, tuner.getWindowSize());
+
+      // until the window has shrunk by 93750 bytes
+      Assert.assertEquals(6250, tuner.resize(50000, 30000 * MILLISECOND));
+      Assert.assertEquals(1000, tuner.resize(1000, 40000 * MILLISECOND));
+   }
+
+   public void testSlowConsumerOneMessageAtATime() throws Exception
+   {
+      final int messageSize = 100;
+
+      final int windowSize = 100 * messageSize;
+
+      // the consumer takes 2 ms per message, the credits take 1/10 ms to go to the server and the messages to come back
+      final long consumeTime = 2 * MILLISECOND;
+
+      final long roundTrip = MILLISECOND / 10;
+
+      ConsumerWindowTuner tuner = new ConsumerWindowTuner(windowSize, 0);
+
+      long now = 0;
+
+      int remaining = 400;
+
+      // the messages the server has sent and the consumer hasn't consumed
+      int buffered = 0;
+
+      int serverCredits = windowSize;
+
+      int consumed = 0;
+
+      while (serverCredits > 0 && remaining > 0)
+      {
+         serverCredits -= messageSize;
+         remaining--;
+         buffered++;
+         tuner.received(messageSize, now);
+      }
+
+      while (buffered > 0)
+      {
+         now += consumeTime;
+
+         buffered--;
+
+         consumed += messageSize;
+
+         // as ClientConsumerImpl, the credits are sent once half the window is consumed
+         if (consumed >= tuner.getWindowSize() / 2)
+         {
+            serverCredits += tuner.resize(consumed, now);
+
+            consumed = 0;
+
+            while (serverCredits > 0 && remaining > 0)
+            {
+               serverCredits -= messageSize;
+               remaining--;
+               buffered++;
+               tuner.received(messageSize, now + roundTrip);
+            }
+         }
+      }
+
+      Assert.assertEquals(0, remaining);
+
+      // the consumer consumes a few messages during the round trip of its credits: its window has shrunk
+      Assert.assertTrue("window size " + tuner.getWindowSize(), tuner.getWindowSize() < windowSize / 4);
+      Assert.assertEquals(windowSize / ConsumerWindowTuner.RANGE, tuner.getWindowSize());
+   }
+
+   public void testWindowBounds() throws Exception
+   {
+      ConsumerWindowTuner tuner = new ConsumerWindowTuner(1000, 0);
+
+      long now = 0;
+
+      tuner.received(1000, now);
+
+      long granted = 1000;
+
+      long consumed = 0;
+
+      // a consumer always waiting for the server, far away
+      for (int i = 0; i < 100; i++)
+      {
+         now += MILLISECOND;
+
+         int credits = tuner.getWindowSize() / 2;
+
+         consumed += credits;
+
+         granted += tuner.resize(credits, now);
+
+         now += 100 * MILLISECOND;
+
+         tuner.received((int)(granted - consumed), now);
+
+         Assert.assertTrue(tuner.getWindowSize() <= 1000 * ConsumerWindowTuner.RANGE);
+      }
+
+      Assert.assertEquals(1000 * ConsumerWindowTuner.RANGE, tuner.getWindowSize());
+
+      // the credits granted are the credits consumed and the window
+      Assert.assertEquals(consumed + tuner.getWindowSize(), granted);
+
+      // then it stops consuming
+      for (int i = 0; i < 100; i++)
+      {
+         now += 10000 * MILLISECOND;
+
+         consumed += 2;
+
+         granted += tuner.resize(2, now);
+
+         tuner.received(2, now + MILLISECOND);
+
+         Assert.assertTrue(tuner.getWindowSize() >= 1000 / ConsumerWindowTuner.RANGE);
+      }
+
+      Assert.assertEquals(1000 / ConsumerWindowTuner.RANGE, tuner.getWindowSize());
+   }
+
+   public void testReset() throws Exception
+   {
+      ConsumerWindowTuner tuner = new ConsumerWindowTuner(100000, 0);
+
+      tuner.received(100000, 0);
+
+      tuner.resize(50000, 10000 * MILLISECOND);
+
+      tuner.received(100, 10001 * MILLISECOND);
+
+      // credits held back
+      Assert.assertEquals(0, tuner.resize(50000, 20000 * MILLISECOND));
+
+      // the consumer is recreated with new credits, nothing is held back anymore
+      tuner.reset(tuner.getWindowSize() / 2);
+
+      Assert.assertEquals(1000, tuner.resize(1000, 30000 * MILLISECOND));
+   }
+
+   // Package protected ---------------------------------------------
+
+   // Protected -----------------------------------------------------
+
+   // Private -------------------------------------------------------
+
+   // Inner classes -------------------------------------------------
+
+}
@@ -85,6 +85,8 @@ public class ConfigurationImplTest extends UnitTestCase
       Assert.assertEquals(ConfigurationImpl.DEFAULT_ASYNC_CONNECTION_EXECUTION_ENABLED,
                           conf.isAsyncConnectionExecutionEnabled());
       Assert.assertEquals(ConfigurationImpl.DEFAULT_PAGING_DIR, conf.getPagingDirectory());
+      Assert.assertEquals(ConfigurationImpl.DEFAULT_GLOBAL_MAX_SIZE, conf.getGlobalMaxSize());
+      Assert.assertEquals(ConfigurationImpl.DEFAULT_GLOBAL_MAX_DISK_SIZE, conf.getGlobalMaxDiskSize());
       Assert.assertEquals(ConfigurationImpl.DEFAULT_LARGE_MESSAGES_DIR, conf.getLargeMessagesDirectory());
       Assert.assertEquals(ConfigurationImpl.DEFAULT_JOURNAL_COMPACT_PERCENTAGE, conf.getJournalCompactPercentage());
       Assert.assertEquals(ConfigurationImpl.DEFAULT_JOURNAL_BUFFER_TIMEOUT_AIO, conf.getJournalBufferTimeout_AIO());
@@ -277,6 +279,14 @@ public class ConfigurationImplTest extends UnitTestCase
          conf.setPagingDirectory(s);
          Assert.assertEquals(s, conf.getPagingDirectory());
 
+         l = RandomUtil.randomLong();
+         conf.setGlobalMaxSize(l);
+         Assert.assertEquals(l, conf.getGlobalMaxSize());
+
+         l = RandomUtil.randomLong();
+         conf.setGlobalMaxDiskSize(l);
+         Assert.assertEquals(l, conf.getGlobalMaxDiskSize());
+
          s = RandomUtil.randomString();
          conf.setLargeMessagesDirectory(s);
          Assert.assertEquals(s, conf.getLargeMessagesDirectory());
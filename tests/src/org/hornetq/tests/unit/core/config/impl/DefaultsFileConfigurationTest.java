@@ -125,6 +125,10 @@ public class DefaultsFileConfigurationTest extends ConfigurationImplTest
 
       Assert.assertEquals(ConfigurationImpl.DEFAULT_PAGING_DIR, conf.getPagingDirectory());
 
+      Assert.assertEquals(ConfigurationImpl.DEFAULT_GLOBAL_MAX_SIZE, conf.getGlobalMaxSize());
+
+      Assert.assertEquals(ConfigurationImpl.DEFAULT_GLOBAL_MAX_DISK_SIZE, conf.getGlobalMaxDiskSize());
+
       Assert.assertEquals(ConfigurationImpl.DEFAULT_LARGE_MESSAGES_DIR, conf.getLargeMessagesDirectory());
 
       Assert.assertEquals(ConfigurationImpl.DEFAULT_WILDCARD_ROUTING_ENABLED, conf.isWildcardRoutingEnabled());
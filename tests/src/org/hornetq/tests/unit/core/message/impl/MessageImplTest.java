@@ -17,10 +17,19 @@ import java.util.Set;
 
 import junit.framework.Assert;
 
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.client.impl.ClientMessageImpl;
 import org.hornetq.core.logging.Logger;
+import org.hornetq.core.message.impl.MessageInternal;
+import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionSendMessage;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.hornetq.utils.DataConstants;
 import org.hornetq.tests.util.RandomUtil;
 import org.hornetq.tests.util.UnitTestCase;
 
@@ -33,6 +42,21 @@ public class MessageImplTest extends UnitTestCase
 {
    private static final Logger log = Logger.getLogger(MessageImplTest.class);
 
+   private static <T extends Packet> T decodeFrame(final Packet packet, final T decoded)
+   {
+      HornetQBuffer encoded = packet.encode(null);
+
+      byte[] bytes = new byte[encoded.readableBytes()];
+      encoded.readBytes(bytes);
+
+      HornetQBuffer frame = HornetQBuffers.wrappedBuffer(bytes);
+      frame.readerIndex(DataConstants.SIZE_INT + DataConstants.SIZE_BYTE);
+
+      decoded.decode(frame);
+
+      return decoded;
+   }
+
    public void getSetAttributes()
    {
       for (int j = 0; j < 10; j++)
@@ -82,6 +106,96 @@ public class MessageImplTest extends UnitTestCase
       }
    }
 
+   public void testMessageOnInboundFrame()
+   {
+      String text = RandomUtil.randomString();
+
+      ClientMessageImpl sent = new ClientMessageImpl((byte)0, true, 0, System.currentTimeMillis(), (byte)4, 1024);
+      sent.getBodyBuffer().writeString(text);
+      sent.putIntProperty("count", 10);
+      sent.setAddress(new SimpleString("address"));
+
+      // a fixed size buffer, as the frames the decoder slices from what it reads
+      MessageInternal received = (MessageInternal)MessageImplTest.decodeFrame(new SessionSendMessage(sent, false),
+                                                                              new SessionSendMessage()).getMessage();
+
+      Assert.assertEquals(text, received.getBodyBuffer().readString());
+      Assert.assertEquals(10, received.getIntProperty("count").intValue());
+
+      // delivered as is
+      Message delivered = MessageImplTest.decodeFrame(new SessionReceiveMessage(1, received, 1),
+                                                      new SessionReceiveMessage()).getMessage();
+      Assert.assertEquals(text, delivered.getBodyBuffer().readString());
+      Assert.assertEquals(10, delivered.getIntProperty("count").intValue());
+
+      // the frame can't grow, the message must be copied to a bigger buffer
+      received.putStringProperty("added", RandomUtil.randomString());
+      received.putIntProperty("count", 11);
+
+      delivered = MessageImplTest.decodeFrame(new SessionReceiveMessage(1, received, 1), new SessionReceiveMessage())
+                                 .getMessage();
+      Assert.assertEquals(text, delivered.getBodyBuffer().readString());
+      Assert.assertEquals(11, delivered.getIntProperty("count").intValue());
+      Assert.assertEquals(received.getStringProperty("added"), delivered.getStringProperty("added"));
+   }
+
+   public void testCopySharesBuffer()
+   {
+      String text = RandomUtil.randomString();
+
+      ClientMessageImpl sent = new ClientMessageImpl((byte)0, true, 0, System.currentTimeMillis(), (byte)4, 1024);
+      sent.getBodyBuffer().writeString(text);
+      sent.putIntProperty("count", 10);
+      sent.setAddress(new SimpleString("address"));
+
+      ServerMessage original = (ServerMessage)MessageImplTest.decodeFrame(new SessionSendMessage(sent, false),
+                                                                          new SessionSendMessage()).getMessage();
+
+      ServerMessage copy = original.copy(123);
+      copy.setAddress(new SimpleString("copy"));
+      copy.putIntProperty("count", 11);
+
+      // both delivered more than once, from the same buffer
+      for (int i = 0; i < 2; i++)
+      {
+         Message delivered = MessageImplTest.decodeFrame(new SessionReceiveMessage(1, original, 1),
+                                                         new SessionReceiveMessage()).getMessage();
+         Assert.assertEquals(text, delivered.getBodyBuffer().readString());
+         Assert.assertEquals(10, delivered.getIntProperty("count").intValue());
+         Assert.assertEquals(new SimpleString("address"), delivered.getAddress());
+
+         delivered = MessageImplTest.decodeFrame(new SessionReceiveMessage(2, copy, 1), new SessionReceiveMessage())
+                                    .getMessage();
+         Assert.assertEquals(text, delivered.getBodyBuffer().readString());
+         Assert.assertEquals(11, delivered.getIntProperty("count").intValue());
+         Assert.assertEquals(new SimpleString("copy"), delivered.getAddress());
+         Assert.assertEquals(123, delivered.getMessageID());
+      }
+
+      // as stored in the journal
+      HornetQBuffer journalBuffer = HornetQBuffers.dynamicBuffer(1024);
+      copy.encode(journalBuffer);
+
+      ServerMessage stored = new ServerMessageImpl(1, 50);
+      stored.decode(journalBuffer);
+      Assert.assertEquals(text, stored.getBodyBuffer().readString());
+      Assert.assertEquals(11, stored.getIntProperty("count").intValue());
+      Assert.assertEquals(new SimpleString("copy"), stored.getAddress());
+
+      // changing the body of the copy doesn't change the original
+      String changed = RandomUtil.randomString();
+      copy.getBodyBuffer().clear();
+      copy.getBodyBuffer().writeString(changed);
+
+      Message delivered = MessageImplTest.decodeFrame(new SessionReceiveMessage(2, copy, 1),
+                                                      new SessionReceiveMessage()).getMessage();
+      Assert.assertEquals(changed, delivered.getBodyBuffer().readString());
+
+      delivered = MessageImplTest.decodeFrame(new SessionReceiveMessage(1, original, 1), new SessionReceiveMessage())
+                                 .getMessage();
+      Assert.assertEquals(text, delivered.getBodyBuffer().readString());
+   }
+
    public void testExpired()
    {
       Message message = new ClientMessageImpl();
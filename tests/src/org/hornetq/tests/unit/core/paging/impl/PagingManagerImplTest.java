@@ -16,13 +16,16 @@ package org.hornetq.tests.unit.core.paging.impl;
 import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import junit.framework.Assert;
 
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.paging.Page;
 import org.hornetq.core.paging.PagedMessage;
+import org.hornetq.core.paging.PagingStore;
 import org.hornetq.core.paging.impl.PagingManagerImpl;
 import org.hornetq.core.paging.impl.PagingStoreFactoryNIO;
 import org.hornetq.core.paging.impl.TestSupportPageStore;
@@ -112,9 +115,171 @@ public class PagingManagerImplTest extends UnitTestCase
       Assert.assertFalse(store.page(msg, new RoutingContextImpl(null)));
    }
 
+   public void testGlobalMaxSize() throws Exception
+   {
+      HierarchicalRepository<AddressSettings> addressSettings = new HierarchicalObjectRepository<AddressSettings>();
+      AddressSettings settings = new AddressSettings();
+      settings.setAddressFullMessagePolicy(AddressFullMessagePolicy.PAGE);
+      addressSettings.setDefault(settings);
+
+      PagingManagerImpl managerImpl = createManager(addressSettings, 1000, -1);
+
+      PagingStore store1 = managerImpl.getPageStore(new SimpleString("store1"));
+      PagingStore store2 = managerImpl.getPageStore(new SimpleString("store2"));
+
+      Assert.assertEquals(500, managerImpl.getAddressMemoryShare());
+
+      // store1 borrows memory above its share while there's global memory available
+      store1.addSize(800);
+      Assert.assertEquals(800, managerImpl.getTotalMemory());
+      Assert.assertFalse(managerImpl.isGlobalFull());
+      Assert.assertFalse(store1.isPaging());
+
+      // store2 is still under its share, so it doesn't page even after the global memory is exhausted
+      store2.addSize(300);
+      Assert.assertTrue(managerImpl.isGlobalFull());
+      Assert.assertFalse(store2.isPaging());
+
+      // store1 is above its share
+      store1.addSize(10);
+      Assert.assertTrue(store1.isPaging());
+
+      store1.addSize(-810);
+      store2.addSize(-300);
+      Assert.assertEquals(0, managerImpl.getTotalMemory());
+      Assert.assertFalse(managerImpl.isGlobalFull());
+
+      managerImpl.stop();
+   }
+
+   public void testGlobalMaxSizeBlock() throws Exception
+   {
+      HierarchicalRepository<AddressSettings> addressSettings = new HierarchicalObjectRepository<AddressSettings>();
+      AddressSettings settings = new AddressSettings();
+      settings.setAddressFullMessagePolicy(AddressFullMessagePolicy.BLOCK);
+      addressSettings.setDefault(settings);
+
+      PagingManagerImpl managerImpl = createManager(addressSettings, 1000, -1);
+
+      PagingStore store1 = managerImpl.getPageStore(new SimpleString("store1"));
+      PagingStore store2 = managerImpl.getPageStore(new SimpleString("store2"));
+
+      store1.addSize(1100);
+
+      final CountDownLatch latch = new CountDownLatch(1);
+
+      store1.executeRunnableWhenMemoryAvailable(new Runnable()
+      {
+         public void run()
+         {
+            latch.countDown();
+         }
+      });
+
+      Assert.assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+
+      // memory released on another address doesn't release store1 while it's above its share
+      store2.addSize(100);
+      store2.addSize(-100);
+      Assert.assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+
+      store1.addSize(-200);
+      Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+      managerImpl.stop();
+   }
+
+   public void testNoGlobalLimits() throws Exception
+   {
+      HierarchicalRepository<AddressSettings> addressSettings = new HierarchicalObjectRepository<AddressSettings>();
+      AddressSettings settings = new AddressSettings();
+      settings.setAddressFullMessagePolicy(AddressFullMessagePolicy.PAGE);
+      addressSettings.setDefault(settings);
+
+      PagingManagerImpl managerImpl = createManager(addressSettings, -1, -1);
+
+      PagingStore store = managerImpl.getPageStore(new SimpleString("store"));
+
+      // nothing is accounted globally without a global limit
+      store.addSize(1000);
+      Assert.assertEquals(-1, managerImpl.getTotalMemory());
+      Assert.assertEquals(-1, managerImpl.getTotalDiskSize());
+      Assert.assertFalse(managerImpl.isGlobalFull());
+      Assert.assertFalse(managerImpl.isDiskFull());
+      Assert.assertFalse(store.isPaging());
+
+      store.addSize(-1000);
+
+      managerImpl.stop();
+   }
+
+   public void testGlobalMaxDiskSize() throws Exception
+   {
+      HierarchicalRepository<AddressSettings> addressSettings = new HierarchicalObjectRepository<AddressSettings>();
+      AddressSettings settings = new AddressSettings();
+      settings.setAddressFullMessagePolicy(AddressFullMessagePolicy.PAGE);
+      addressSettings.setDefault(settings);
+
+      PagingManagerImpl managerImpl = createManager(addressSettings, -1, 50);
+
+      TestSupportPageStore store = (TestSupportPageStore)managerImpl.getPageStore(new SimpleString("simple-test"));
+
+      store.startPaging();
+
+      Assert.assertTrue(store.page(createMessage(1l, new SimpleString("simple-test"), createRandomBuffer(10)),
+                                   new RoutingContextImpl(null)));
+
+      Assert.assertTrue(managerImpl.getTotalDiskSize() > 50);
+      Assert.assertTrue(managerImpl.isDiskFull());
+
+      final CountDownLatch latch = new CountDownLatch(1);
+
+      store.executeRunnableWhenMemoryAvailable(new Runnable()
+      {
+         public void run()
+         {
+            latch.countDown();
+         }
+      });
+
+      Assert.assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+
+      Page page = store.depage();
+      page.delete();
+
+      Assert.assertEquals(0, managerImpl.getTotalDiskSize());
+      Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+      managerImpl.stop();
+   }
+
    // Package protected ---------------------------------------------
 
    // Protected -----------------------------------------------------
+
+   protected PagingManagerImpl createManager(final HierarchicalRepository<AddressSettings> addressSettings,
+                                             final long maxMemory,
+                                             final long maxDiskSize) throws Exception
+   {
+      PagingStoreFactoryNIO storeFactory = new PagingStoreFactoryNIO(getPageDir(),
+                                                                     100,
+                                                                     null,
+                                                                     new OrderedExecutorFactory(Executors.newCachedThreadPool()),
+                                                                     true);
+
+      storeFactory.setPostOffice(new FakePostOffice());
+
+      PagingManagerImpl managerImpl = new PagingManagerImpl(storeFactory,
+                                                            new NullStorageManager(),
+                                                            addressSettings,
+                                                            maxMemory,
+                                                            maxDiskSize);
+
+      managerImpl.start();
+
+      return managerImpl;
+   }
+
    @Override
    protected void setUp() throws Exception
    {
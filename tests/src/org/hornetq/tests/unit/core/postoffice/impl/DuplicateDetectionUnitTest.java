@@ -230,6 +230,35 @@ public class DuplicateDetectionUnitTest extends ServiceTestBase
          return 0;
       }
 
+      public long getAddressMemoryShare()
+      {
+         return -1;
+      }
+
+      public long addDiskSize(final long size)
+      {
+         return 0;
+      }
+
+      public long getTotalDiskSize()
+      {
+         return 0;
+      }
+
+      public long getMaxDiskSize()
+      {
+         return -1;
+      }
+
+      public boolean isDiskFull()
+      {
+         return false;
+      }
+
+      public void addBlockedStore(final PagingStore store)
+      {
+      }
+
       public PagingStore getPageStore(final SimpleString address) throws Exception
       {
          return null;
@@ -454,6 +454,15 @@ public class FakeQueue implements Queue
       return null;
    }
 
+   /* (non-Javadoc)
+    * @see org.hornetq.core.server.Queue#browserIterator()
+    */
+   public LinkedListIterator<MessageReference> browserIterator()
+   {
+      // TODO Auto-generated method stub
+      return null;
+   }
+
    /* (non-Javadoc)
     * @see org.hornetq.core.server.Queue#list(org.hornetq.core.filter.Filter)
     */
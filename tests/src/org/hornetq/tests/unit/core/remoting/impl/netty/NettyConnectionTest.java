@@ -14,8 +14,12 @@ package org.hornetq.tests.unit.core.remoting.impl.netty;
 
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 import junit.framework.Assert;
 
@@ -28,6 +32,7 @@ import org.hornetq.spi.core.remoting.Connection;
 import org.hornetq.spi.core.remoting.ConnectionLifeCycleListener;
 import org.hornetq.tests.util.RandomUtil;
 import org.hornetq.tests.util.UnitTestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelConfig;
 import org.jboss.netty.channel.ChannelFactory;
@@ -78,6 +83,103 @@ public class NettyConnectionTest extends UnitTestCase
 
    }
 
+   public void testEncodeBuffersReusedWhenBatched() throws Exception
+   {
+      SimpleChannel channel = new SimpleChannel(RandomUtil.randomInt());
+      NettyConnection conn = new NettyConnection(channel, new MyListener(), true, false);
+
+      Map<HornetQBuffer, HornetQBuffer> buffers = new IdentityHashMap<HornetQBuffer, HornetQBuffer>();
+
+      for (int i = 0; i < 1000; i++)
+      {
+         HornetQBuffer buff = conn.createBuffer(100);
+         Assert.assertEquals(0, buff.writerIndex());
+         buff.writeBytes(new byte[100]);
+         buffers.put(buff, buff);
+         conn.write(buff, false, true);
+      }
+
+      // the packets were copied into batch buffers, so the same few encode buffers are used over and over
+      Assert.assertTrue("" + buffers.size(), buffers.size() < 100);
+
+      conn.checkFlushBatchBuffer();
+
+      int total = 0;
+      for (Object written : channel.getWritten())
+      {
+         total += ((ChannelBuffer)written).readableBytes();
+      }
+      Assert.assertEquals(100 * 1000, total);
+   }
+
+   public void testBigPacketNotCopiedIntoBatch() throws Exception
+   {
+      SimpleChannel channel = new SimpleChannel(RandomUtil.randomInt());
+      NettyConnection conn = new NettyConnection(channel, new MyListener(), true, false);
+
+      HornetQBuffer small = conn.createBuffer(100);
+      small.writeBytes(new byte[100]);
+      conn.write(small, false, true);
+
+      Assert.assertEquals(0, channel.getWritten().size());
+
+      HornetQBuffer big = HornetQBuffers.wrappedBuffer(new byte[20 * 1024]);
+      conn.write(big, false, true);
+
+      Assert.assertEquals(2, channel.getWritten().size());
+      Assert.assertEquals(100, ((ChannelBuffer)channel.getWritten().get(0)).readableBytes());
+      Assert.assertSame(big.channelBuffer(), channel.getWritten().get(1));
+   }
+
+   public void testAdaptiveBatchingFlushedByExecutor() throws Exception
+   {
+      SimpleChannel channel = new SimpleChannel(RandomUtil.randomInt());
+
+      final List<Runnable> tasks = new ArrayList<Runnable>();
+
+      Executor executor = new Executor()
+      {
+         public void execute(final Runnable command)
+         {
+            tasks.add(command);
+         }
+      };
+
+      NettyConnection conn = new NettyConnection(channel, new MyListener(), true, false, executor);
+
+      for (int i = 0; i < 10; i++)
+      {
+         HornetQBuffer buff = conn.createBuffer(100);
+         buff.writeBytes(new byte[100]);
+         conn.write(buff, false, true);
+      }
+
+      // the writes are coalesced until the flusher runs
+      Assert.assertEquals(0, channel.getWritten().size());
+      Assert.assertEquals(1, tasks.size());
+
+      tasks.remove(0).run();
+
+      Assert.assertEquals(1, channel.getWritten().size());
+      Assert.assertEquals(1000, ((ChannelBuffer)channel.getWritten().get(0)).readableBytes());
+
+      HornetQBuffer buff = conn.createBuffer(100);
+      buff.writeBytes(new byte[100]);
+      conn.write(buff, false, true);
+
+      Assert.assertEquals(1, channel.getWritten().size());
+      Assert.assertEquals(1, tasks.size());
+
+      tasks.remove(0).run();
+
+      Assert.assertEquals(2, channel.getWritten().size());
+
+      // nothing left to flush
+      tasks.clear();
+      conn.checkFlushBatchBuffer();
+      Assert.assertEquals(2, channel.getWritten().size());
+   }
+
    private final class SimpleChannel implements Channel
    {
       private final int id;
@@ -560,6 +560,15 @@ public class RemoteQueueBindImplTest extends UnitTestCase
          return null;
       }
 
+      /* (non-Javadoc)
+       * @see org.hornetq.core.server.Queue#browserIterator()
+       */
+      public LinkedListIterator<MessageReference> browserIterator()
+      {
+         // TODO Auto-generated method stub
+         return null;
+      }
+
       /* (non-Javadoc)
        * @see org.hornetq.core.server.Queue#setExpiryAddress(org.hornetq.api.core.SimpleString)
        */
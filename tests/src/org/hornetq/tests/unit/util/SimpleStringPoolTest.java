@@ -0,0 +1,110 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.util;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.tests.util.RandomUtil;
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.SimpleStringPool;
+
+/**
+ * A SimpleStringPoolTest
+ *
+ */
+public class SimpleStringPoolTest extends UnitTestCase
+{
+   public void testReadSharedInstance() throws Exception
+   {
+      SimpleStringPool pool = new SimpleStringPool(16, 64);
+
+      SimpleString address = new SimpleString("jms.queue.orders");
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(256);
+      buffer.writeSimpleString(address);
+      buffer.writeNullableSimpleString(address);
+      buffer.writeNullableSimpleString(null);
+      buffer.writeInt(123);
+
+      SimpleString first = pool.readSimpleString(buffer);
+      SimpleString second = pool.readNullableSimpleString(buffer);
+
+      Assert.assertEquals(address, first);
+      Assert.assertSame(first, second);
+      Assert.assertNull(pool.readNullableSimpleString(buffer));
+
+      // the reader index is after the strings
+      Assert.assertEquals(123, buffer.readInt());
+   }
+
+   public void testLongStringsNotPooled() throws Exception
+   {
+      SimpleStringPool pool = new SimpleStringPool(16, 8);
+
+      SimpleString string = new SimpleString("a longer string");
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(256);
+      buffer.writeSimpleString(string);
+      buffer.writeSimpleString(string);
+
+      SimpleString first = pool.readSimpleString(buffer);
+      SimpleString second = pool.readSimpleString(buffer);
+
+      Assert.assertEquals(string, first);
+      Assert.assertEquals(string, second);
+      Assert.assertNotSame(first, second);
+
+      Assert.assertSame(string, pool.intern(string));
+   }
+
+   public void testIntern() throws Exception
+   {
+      SimpleStringPool pool = new SimpleStringPool(16, 64);
+
+      SimpleString string = new SimpleString("queue");
+
+      Assert.assertSame(string, pool.intern(string));
+      Assert.assertSame(string, pool.intern(new SimpleString("queue")));
+      Assert.assertNull(pool.intern(null));
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(256);
+      buffer.writeSimpleString(new SimpleString("queue"));
+
+      Assert.assertSame(string, pool.readSimpleString(buffer));
+   }
+
+   public void testBounded() throws Exception
+   {
+      SimpleStringPool pool = new SimpleStringPool(4, 64);
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(1024);
+
+      SimpleString[] strings = new SimpleString[100];
+
+      for (int i = 0; i < strings.length; i++)
+      {
+         strings[i] = RandomUtil.randomSimpleString();
+         buffer.writeSimpleString(strings[i]);
+      }
+
+      // the strings evicted from the pool are still read correctly
+      for (SimpleString string : strings)
+      {
+         Assert.assertEquals(string, pool.readSimpleString(buffer));
+      }
+   }
+}
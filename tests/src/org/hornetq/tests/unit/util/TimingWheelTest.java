@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.util;
+
+import java.util.List;
+
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.TimingWheel;
+
+/**
+ * A TimingWheelTest
+ *
+ */
+public class TimingWheelTest extends UnitTestCase
+{
+   private static final long TICK = 100;
+
+   public void testExpire() throws Exception
+   {
+      TimingWheel<String> wheel = new TimingWheel<String>(8, TICK, 0);
+
+      wheel.schedule("a", 150);
+      wheel.schedule("b", 200);
+      wheel.schedule("c", 450);
+
+      assertEquals(3, wheel.size());
+
+      assertTrue(wheel.expire(100).isEmpty());
+
+      // deadlines are rounded up to the end of their tick
+      assertTrue(wheel.expire(199).isEmpty());
+
+      List<String> expired = wheel.expire(200);
+      assertEquals(2, expired.size());
+      assertTrue(expired.contains("a"));
+      assertTrue(expired.contains("b"));
+
+      assertTrue(wheel.expire(400).isEmpty());
+
+      expired = wheel.expire(500);
+      assertEquals(1, expired.size());
+      assertEquals("c", expired.get(0));
+
+      assertEquals(0, wheel.size());
+   }
+
+   public void testLaterRevolution() throws Exception
+   {
+      TimingWheel<String> wheel = new TimingWheel<String>(4, TICK, 0);
+
+      // same slot, one and two revolutions later
+      wheel.schedule("a", 100);
+      wheel.schedule("b", 500);
+      wheel.schedule("c", 900);
+
+      assertEquals(1, wheel.expire(100).size());
+      assertTrue(wheel.expire(400).isEmpty());
+      assertEquals("b", wheel.expire(500).get(0));
+      assertEquals("c", wheel.expire(900).get(0));
+   }
+
+   public void testLongPause() throws Exception
+   {
+      TimingWheel<String> wheel = new TimingWheel<String>(4, TICK, 0);
+
+      wheel.schedule("a", 100);
+      wheel.schedule("b", 300);
+      wheel.schedule("c", 1000);
+
+      // more than a revolution elapsed, every slot is visited once
+      List<String> expired = wheel.expire(5000);
+      assertEquals(3, expired.size());
+   }
+
+   public void testReschedule() throws Exception
+   {
+      TimingWheel<String> wheel = new TimingWheel<String>(8, TICK, 0);
+
+      wheel.schedule("a", 200);
+      wheel.schedule("a", 500);
+
+      assertEquals(1, wheel.size());
+      assertTrue(wheel.expire(400).isEmpty());
+      assertEquals("a", wheel.expire(500).get(0));
+
+      // a deadline already past is due on the next tick
+      wheel.schedule("b", 100);
+      assertTrue(wheel.expire(550).isEmpty());
+      assertEquals("b", wheel.expire(600).get(0));
+   }
+
+   public void testCancel() throws Exception
+   {
+      TimingWheel<String> wheel = new TimingWheel<String>(8, TICK, 0);
+
+      wheel.schedule("a", 200);
+
+      assertTrue(wheel.cancel("a"));
+      assertFalse(wheel.cancel("a"));
+
+      assertEquals(0, wheel.size());
+      assertTrue(wheel.expire(1000).isEmpty());
+   }
+}
@@ -14,6 +14,7 @@
 package org.hornetq.tests.unit.util;
 
 import java.util.Iterator;
+import java.util.Set;
 
 import junit.framework.Assert;
 
@@ -236,6 +237,156 @@ public class TypedPropertiesTest extends UnitTestCase
       TypedPropertiesTest.assertEqualsTypeProperties(emptyProps, decodedProps);
    }
 
+   public void testDecodedPropertiesReadInPlace() throws Exception
+   {
+      SimpleString intKey = RandomUtil.randomSimpleString();
+      SimpleString stringKey = RandomUtil.randomSimpleString();
+      SimpleString bytesKey = RandomUtil.randomSimpleString();
+      int intValue = RandomUtil.randomInt();
+      SimpleString stringValue = RandomUtil.randomSimpleString();
+      byte[] bytesValue = RandomUtil.randomBytes();
+
+      props.putBooleanProperty(RandomUtil.randomSimpleString(), true);
+      props.putBytesProperty(bytesKey, bytesValue);
+      props.putIntProperty(intKey, intValue);
+      props.putSimpleStringProperty(stringKey, stringValue);
+      props.putSimpleStringProperty(RandomUtil.randomSimpleString(), null);
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(1024);
+      props.encode(buffer);
+
+      TypedProperties decodedProps = new TypedProperties();
+      decodedProps.decode(buffer);
+
+      Assert.assertEquals(props.getEncodeSize(), decodedProps.getEncodeSize());
+      Assert.assertEquals(props.getMemoryOffset(), decodedProps.getMemoryOffset());
+
+      Assert.assertEquals(intValue, decodedProps.getIntProperty(intKey).intValue());
+      Assert.assertEquals(stringValue, decodedProps.getSimpleStringProperty(stringKey));
+      UnitTestCase.assertEqualsByteArrays(bytesValue, decodedProps.getBytesProperty(bytesKey));
+      Assert.assertTrue(decodedProps.containsProperty(intKey));
+      Assert.assertFalse(decodedProps.containsProperty(RandomUtil.randomSimpleString()));
+      Assert.assertNull(decodedProps.getProperty(RandomUtil.randomSimpleString()));
+
+      // the properties that were only read are encoded back unchanged
+      HornetQBuffer reencoded = HornetQBuffers.dynamicBuffer(1024);
+      decodedProps.encode(reencoded);
+
+      Assert.assertEquals(buffer.writerIndex(), reencoded.writerIndex());
+      for (int i = 0; i < buffer.writerIndex(); i++)
+      {
+         Assert.assertEquals(buffer.getByte(i), reencoded.getByte(i));
+      }
+
+      TypedPropertiesTest.assertEqualsTypeProperties(props, decodedProps);
+   }
+
+   public void testModifyDecodedProperties() throws Exception
+   {
+      SimpleString keyToRemove = RandomUtil.randomSimpleString();
+      SimpleString keyToChange = RandomUtil.randomSimpleString();
+
+      props.putIntProperty(keyToRemove, RandomUtil.randomInt());
+      props.putLongProperty(keyToChange, RandomUtil.randomLong());
+      props.putSimpleStringProperty(key, RandomUtil.randomSimpleString());
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(1024);
+      props.encode(buffer);
+
+      TypedProperties decodedProps = new TypedProperties();
+      decodedProps.decode(buffer);
+
+      // read before the modification, so it is cached
+      decodedProps.getLongProperty(keyToChange);
+
+      TypedProperties copy = new TypedProperties(decodedProps);
+
+      long newValue = RandomUtil.randomLong();
+      decodedProps.putLongProperty(keyToChange, newValue);
+      decodedProps.removeProperty(keyToRemove);
+
+      Assert.assertEquals(newValue, decodedProps.getLongProperty(keyToChange).longValue());
+      Assert.assertNull(decodedProps.getProperty(keyToRemove));
+      Assert.assertEquals(2, decodedProps.getPropertyNames().size());
+
+      // the copy made before the modification is not affected
+      TypedPropertiesTest.assertEqualsTypeProperties(props, copy);
+
+      buffer.clear();
+      decodedProps.encode(buffer);
+
+      Assert.assertEquals(decodedProps.getEncodeSize(), buffer.writerIndex());
+
+      TypedProperties redecodedProps = new TypedProperties();
+      redecodedProps.decode(buffer);
+
+      TypedPropertiesTest.assertEqualsTypeProperties(decodedProps, redecodedProps);
+   }
+
+   public void testDecodeInternalProperties() throws Exception
+   {
+      props.putIntProperty(RandomUtil.randomSimpleString(), RandomUtil.randomInt());
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(1024);
+      props.encode(buffer);
+
+      TypedProperties decodedProps = new TypedProperties();
+      decodedProps.decode(buffer);
+
+      Assert.assertFalse(decodedProps.hasInternalProperties());
+
+      props.putIntProperty(new SimpleString("_HQ_ROUTE_TO"), RandomUtil.randomInt());
+
+      buffer.clear();
+      props.encode(buffer);
+
+      decodedProps = new TypedProperties();
+      decodedProps.decode(buffer);
+
+      Assert.assertTrue(decodedProps.hasInternalProperties());
+   }
+
+   public void testDecodedLargeMap() throws Exception
+   {
+      SimpleString[] keys = new SimpleString[500];
+
+      for (int i = 0; i < keys.length; i++)
+      {
+         keys[i] = new SimpleString("price" + i);
+         props.putDoubleProperty(keys[i], i * 0.5);
+      }
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(1024);
+      props.encode(buffer);
+
+      TypedProperties decodedProps = new TypedProperties();
+      decodedProps.decode(buffer);
+
+      for (int i = keys.length - 1; i >= 0; i--)
+      {
+         Assert.assertEquals(i * 0.5, decodedProps.getDoubleProperty(keys[i]).doubleValue());
+      }
+
+      Assert.assertFalse(decodedProps.containsProperty(new SimpleString("price" + keys.length)));
+      Assert.assertEquals(keys.length, decodedProps.getPropertyNames().size());
+   }
+
+   public void testPropertyNamesSnapshot() throws Exception
+   {
+      props.putIntProperty(key, 1);
+
+      Set<SimpleString> names = props.getPropertyNames();
+
+      // once iterated, the properties are copied on write
+      props.putIntProperty(RandomUtil.randomSimpleString(), 2);
+      props.removeProperty(key);
+
+      Assert.assertEquals(1, names.size());
+      Assert.assertTrue(names.contains(key));
+      Assert.assertEquals(1, props.getPropertyNames().size());
+      Assert.assertFalse(props.containsProperty(key));
+   }
+
    @Override
    protected void setUp() throws Exception
    {
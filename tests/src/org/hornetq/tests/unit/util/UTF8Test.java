@@ -83,6 +83,31 @@ public class UTF8Test extends UnitTestCase
       }
    }
 
+   public void testASCIIPrefix() throws Exception
+   {
+      // ASCII first, longer than the thread's buffer, then chars encoded on 2 and 3 bytes
+      StringBuffer buffer = new StringBuffer();
+
+      for (int i = 0; i < 3000; i++)
+      {
+         buffer.append((char)('a' + i % 26));
+      }
+
+      buffer.append("\u00E9\uB5E2\u0000\uCAC7abc");
+
+      for (int i = 0; i < 3000; i++)
+      {
+         buffer.append('\u00E9');
+      }
+
+      String str = buffer.toString();
+
+      testValidateUTFOnDataInputStream(str, HornetQBuffers.dynamicBuffer(100));
+
+      // only ASCII
+      testValidateUTFOnDataInputStream(str.substring(0, 3000), HornetQBuffers.dynamicBuffer(100));
+   }
+
    private void testValidateUTFOnDataInputStream(final String str, final HornetQBuffer wrap) throws Exception
    {
       UTF8Util.saveUTF(wrap, str);